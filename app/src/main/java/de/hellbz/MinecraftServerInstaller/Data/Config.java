@@ -7,6 +7,9 @@ import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 public class Config {
@@ -36,6 +39,11 @@ public class Config {
     public static Path logFolder = dataFolder.resolve("logs");
     public static Path modulesFolder = dataFolder.resolve("modules");
     public static Path tempFolder = dataFolder.resolve("temp");
+    public static Path objectsFolder = dataFolder.resolve("objects");  // Content-addressed artifact store
+    public static Path indexFolder = dataFolder.resolve("index");  // Binary indexes of parsed manifests
+    public static Path librariesFolder = dataFolder.resolve("libraries");  // Local maven repository shared by all installs
+    public static Path processorsFolder = dataFolder.resolve("processors");  // Cached outputs of the Forge installer processors
+    public static Path patchedFolder = dataFolder.resolve("patched");  // Pre-patched server jars, one folder per build
 
     // Define paths based on the subfolders
     public static Path configFilePath = configFolder.resolve("msi.conf");
@@ -47,6 +55,39 @@ public class Config {
     public static String logLevelCSV = "DEBUG";
     public static boolean detailedLog = false;
 
+    // Download settings loaded from config
+    public static int downloadSegments = 4;  // Parallel HTTP Range segments per download (1 = single stream)
+    public static long segmentMinSize = 2 * 1024 * 1024;  // Minimum size of one segment in bytes
+    public static int maxConnectionsPerHost = 6;  // Concurrent connections allowed per host
+    public static int downloadThreads = 8;  // Worker threads for batch downloads
+    public static boolean httpKeepAlive = true;  // Reuse connections between requests
+    public static int tlsSessionCacheSize = 100;  // Cached TLS sessions for abbreviated handshakes
+    public static int tlsSessionTimeout = 3600;  // Lifetime of a cached TLS session in seconds
+    public static long bandwidthLimit = 0;  // Download limit for the whole process in bytes per second (0 = unlimited)
+    public static long bandwidthLimitPerHost = 0;  // Download limit per host in bytes per second (0 = unlimited)
+    public static Map<String, Long> hostBandwidthLimits = new ConcurrentHashMap<>();  // Limits for single hosts (bandwidthLimit.<host>)
+    public static int progressUpdatesPerSecond = 4;  // Maximum rate of progress events per download
+    public static boolean progressLog = false;  // Log the progress of every download in 10% steps
+    public static String progressJsonFile = "";  // JSON lines file in the log folder that receives every progress event, empty = off
+    public static Map<String, List<String>> mirrors = new ConcurrentHashMap<>();  // Alternative base URLs per upstream host (mirrors.<host>)
+    public static boolean mirrorIncludeOrigin = true;  // Rank the original host together with its mirrors
+    public static int mirrorFirstByteTimeout = 5000;  // Milliseconds until a slow mirror is skipped
+    public static long memoCacheSize = 32 * 1024 * 1024;  // Memory budget for fetched documents in bytes
+    public static int memoCacheTtl = 600;  // Seconds a fetched document is reused without asking the disk cache or server
+    public static long tempCacheSize = 1024L * 1024 * 1024;  // Size budget of the temp folder cache in bytes
+    public static String tempCachePolicy = "LRU";  // Eviction order of the temp folder cache: LRU or LFU
+    public static int httpRetries = 3;  // Further attempts after a timeout, 408, 429 or 5xx
+    public static int retryBaseDelay = 500;  // Milliseconds before the first retry, doubled for each further one
+    public static int retryMaxDelay = 8000;  // Upper bound of the retry delay in milliseconds
+    public static int readTimeout = 30000;  // Milliseconds without data until a request is aborted
+    public static boolean hedgeRequests = true;  // Send a second request for a document if the first one is late
+    public static int hedgeDelay = 1000;  // Milliseconds until the second request while the host latency is unknown
+    public static int hedgeMinDelay = 50;  // Lower bound for the p95 based hedge delay in milliseconds
+    public static int prefetchVersions = 5;  // Version JSONs of the newest releases fetched in the background, 0 = off
+    public static boolean forgeProcessorCache = true;  // Reuse the outputs of the Forge installer for the same processor inputs
+    public static String modpack = "";  // Modpack manifest (.mrpack or JSON list, file or URL) synced into the instance after the install, empty = off
+    public static String downloadMetricsFile = "download-metrics.json";  // JSON dump of the request metrics in the log folder, empty = log only
+
     static {
         // Automatically create directories when the class is loaded
         try {
@@ -2,7 +2,13 @@ package de.hellbz.MinecraftServerInstaller;
 
 import de.hellbz.MinecraftServerInstaller.Data.Config;
 import de.hellbz.MinecraftServerInstaller.Utils.ConfigHandler;
+import de.hellbz.MinecraftServerInstaller.Utils.DownloadMetrics;
+import de.hellbz.MinecraftServerInstaller.Utils.JsonProgressSink;
+import de.hellbz.MinecraftServerInstaller.Utils.LogProgressRenderer;
 import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
+import de.hellbz.MinecraftServerInstaller.Utils.ModpackSync;
+import de.hellbz.MinecraftServerInstaller.Utils.ProgressTracker;
+import de.hellbz.MinecraftServerInstaller.Utils.TempCache;
 import de.hellbz.MinecraftServerInstaller.Data.InstallerUI;
 
 import java.io.IOException;
@@ -43,6 +49,20 @@ public class MainInstaller {
 
         logger.info("Starting the MainInstaller...");
 
+        // Progress of every download also goes to the log and/or a JSON lines file, if configured
+        if (Config.progressLog) {
+            ProgressTracker.addGlobalListener(new LogProgressRenderer());
+        }
+        JsonProgressSink jsonProgress = null;
+        if (!Config.progressJsonFile.isEmpty()) {
+            try {
+                jsonProgress = JsonProgressSink.toFile(Config.logFolder.resolve(Config.progressJsonFile));
+                ProgressTracker.addGlobalListener(jsonProgress);
+            } catch (IOException e) {
+                logger.warning("Could not open the JSON progress file: " + e.getMessage());
+            }
+        }
+
         try {
             // 1. Load internal installers
             logger.info("Loading internal Installer-Modules...");
@@ -84,6 +104,20 @@ public class MainInstaller {
             }
 
             Config.selectedInstaller.install();
+
+            // 8. Sync the modpack (if configured)
+            if (!Config.modpack.isEmpty()) {
+                try {
+                    logger.info("Syncing modpack " + Config.modpack + "...");
+                    ModpackSync.Result result = ModpackSync.load(Config.modpack).sync(Config.rootFolder);
+                    if (result.failed > 0) {
+                        logger.severe(result.failed + " modpack files could not be updated, they are retried on the next run.");
+                    }
+                } catch (IOException e) {
+                    logger.severe("Error syncing the modpack: " + e.getMessage());
+                }
+            }
+
             Config.selectedInstaller.start();
 
 
@@ -91,6 +125,15 @@ public class MainInstaller {
             logger.severe("An error occurred: " + e.getMessage());
             //e.printStackTrace();
         } finally {
+            TempCache.logStats();
+            DownloadMetrics.dump();
+            if (jsonProgress != null) {
+                try {
+                    jsonProgress.close();
+                } catch (IOException e) {
+                    logger.warning("Could not close the JSON progress file: " + e.getMessage());
+                }
+            }
             logger.info("Installation process completed. Exiting.");
             System.exit(0);
         }
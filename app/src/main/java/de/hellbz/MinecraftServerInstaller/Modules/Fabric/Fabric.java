@@ -0,0 +1,234 @@
+package de.hellbz.MinecraftServerInstaller.Modules.Fabric;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import de.hellbz.MinecraftServerInstaller.MinecraftServerInstaller;
+import de.hellbz.MinecraftServerInstaller.Utils.FileOperation;
+import de.hellbz.MinecraftServerInstaller.Utils.LocalMaven;
+import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
+import de.hellbz.MinecraftServerInstaller.Utils.MinecraftServerJar;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Implementierung des Fabric-Installers
+public class Fabric implements MinecraftServerInstaller {
+
+    String className = this.getClass().getSimpleName();
+
+    // Fabric-Meta-API mit der Matrix aus Spiel- und Loader-Versionen
+    String metaURL = "https://meta.fabricmc.net/v2/versions/";
+
+    // Definiere den Pfad zur Cache-Datei der Spielversionen (die Loader-Listen liegen je Spielversion daneben)
+    String gameCacheFile = Config.tempFolder.resolve(className + "_game.json").toAbsolutePath().toString();
+
+    // Start-Jar wie beim offiziellen Fabric-Installer: Class-Path auf libraries/, die Vanilla-Jar kommt aus der Properties-Datei
+    String launchJar = "fabric-server-launch.jar";
+    String launcherProperties = "fabric-server-launcher.properties";
+
+    // Initialize LoggerUtility after the config is loaded
+    Logger logger = LoggerUtility.getLogger(Fabric.class);
+
+    @Override
+    public void init() {
+        System.out.println("Fabric Minecraft Installer initialized.");
+    }
+
+    @Override
+    public String getInstallerName() {
+        return "Minecraft-Fabric";
+    }
+
+    @Override
+    public String[] getAvailableTypes() {
+        return new String[] {"Release", "Snapshot", "All"};
+    }
+
+    @Override
+    public String[] getAvailableVersions() {
+        JSONArray gameVersions = fetchIndex("game", gameCacheFile);
+        if (gameVersions == null) {
+            return new String[0];
+        }
+        // Nach dem globalen Filter Config.selectedType gefilterte Spielversionen ("All" liefert alle), stable = Release
+        List<String> versions = new ArrayList<>();
+        for (int i = 0; i < gameVersions.length(); i++) {
+            JSONObject gameVersion = gameVersions.getJSONObject(i);
+            boolean stable = gameVersion.optBoolean("stable");
+            if (Config.selectedType == null || Config.selectedType.equalsIgnoreCase("all") || stable == !Config.selectedType.equalsIgnoreCase("snapshot")) {
+                versions.add(gameVersion.getString("version"));
+            }
+        }
+        return versions.toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getAvailableSubVersions() {
+        if (Config.selectedVersion == null) {
+            return new String[0];
+        }
+        // Nur die Loader, die es für die gewählte Spielversion gibt (sonst fehlt später das Server-Profil)
+        String cacheFile = Config.tempFolder.resolve(className + "_loader_" + Config.selectedVersion + ".json").toAbsolutePath().toString();
+        JSONArray loaderVersions = fetchIndex("loader/" + Config.selectedVersion, cacheFile);
+        if (loaderVersions == null) {
+            return new String[0];
+        }
+        // Neueste zuerst; stabile vor Betas
+        List<String> stable = new ArrayList<>();
+        List<String> unstable = new ArrayList<>();
+        for (int i = 0; i < loaderVersions.length(); i++) {
+            JSONObject loaderVersion = loaderVersions.getJSONObject(i).getJSONObject("loader");
+            (loaderVersion.optBoolean("stable") ? stable : unstable).add(loaderVersion.getString("version"));
+        }
+        stable.addAll(unstable);
+        return stable.toArray(new String[0]);
+    }
+
+    // Helper method to fetch a version list of the meta API, cached and revalidated with the ETag once it is stale
+    private JSONArray fetchIndex(String name, String cacheFile) {
+        FileOperation downloadResult = FileOperation.getFile(metaURL + name)
+                .cache(cacheFile)
+                .fetch();
+
+        if (downloadResult.getResponseCode() != 200 && downloadResult.getResponseCode() != 304) {
+            logger.severe("Failed to fetch the Fabric " + name + " versions. Response code: " + downloadResult.getResponseCode());
+            return null;
+        }
+        return downloadResult.getParsed(JSONArray.class, JSONArray::new);
+    }
+
+    @Override
+    public Pattern getStartFile() {
+        String patternString = ".*fabric-server-launch\\.jar";
+        return Pattern.compile(patternString);
+    }
+
+    @Override
+    public void install() {
+        if (Config.selectedSubVersion == null) {
+            logger.severe("No Fabric loader version selected.");
+            return;
+        }
+        logger.info("Installing Fabric for Minecraft version: " + Config.selectedVersion + ", Loader version: " + Config.selectedSubVersion);
+
+        // Das Server-Profil listet alle Bibliotheken (Loader, Intermediary, ASM, Mixin) mit Maven-Repository und sha1
+        FileOperation profileDownload = FileOperation.getFile(metaURL + "loader/" + Config.selectedVersion + "/" + Config.selectedSubVersion + "/server/json")
+                .fetch();
+        if (profileDownload.getResponseCode() != 200 && profileDownload.getResponseCode() != 304) {
+            logger.severe("Failed to fetch the Fabric server profile. Response code: " + profileDownload.getResponseCode());
+            return;
+        }
+        JSONObject profile = profileDownload.asJson();
+
+        List<LocalMaven.Artifact> libraries = new ArrayList<>();
+        JSONArray entries = profile.getJSONArray("libraries");
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject library = entries.getJSONObject(i);
+            libraries.add(LocalMaven.Artifact.of(library.getString("name"), library.getString("url"),
+                    library.optString("sha1", null), library.optLong("size", -1)));
+        }
+
+        // Alle Bibliotheken parallel in das gemeinsame Maven-Verzeichnis laden und in die Instanz verlinken,
+        // der erste Start muss dann nichts mehr herunterladen
+        int failed = LocalMaven.fetchAll(libraries);
+        if (failed > 0) {
+            logger.severe(failed + " Fabric libraries could not be fetched.");
+            return;
+        }
+        Path root = Config.rootFolder;
+        try {
+            LocalMaven.linkInto(libraries, root.resolve("libraries"));
+        } catch (IOException e) {
+            logger.severe("Could not link the Fabric libraries into " + root + ": " + e.getMessage());
+            return;
+        }
+
+        // Die Vanilla-Jar per sha1 aus dem Artifact-Store (oder frisch geladen), geteilt mit allen Instanzen
+        Path serverJar = MinecraftServerJar.fetch(Config.selectedVersion, root);
+        if (serverJar == null) {
+            logger.severe("The Minecraft server jar is missing, Fabric cannot be started without it.");
+            return;
+        }
+
+        try {
+            writeLaunchJar(root.resolve(launchJar), libraries, profile.getString("mainClass"));
+            Path properties = root.resolve(launcherProperties);
+            if (!Files.exists(properties)) {
+                Files.write(properties, ("serverJar=" + serverJar.getFileName() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            logger.info("Fabric installed, start the server with " + launchJar + ".");
+        } catch (IOException e) {
+            logger.severe("Could not create " + launchJar + ": " + e.getMessage());
+        }
+    }
+
+    // Helper method to write the launch jar: FabricServerLauncher as Main-Class, the libraries on the Class-Path
+    // and the Knot main class of the profile in fabric-server-launch.properties
+    private void writeLaunchJar(Path target, List<LocalMaven.Artifact> libraries, String mainClass) throws IOException {
+        StringBuilder classPath = new StringBuilder();
+        String launcherClass = null;
+        for (LocalMaven.Artifact library : libraries) {
+            if (classPath.length() > 0) {
+                classPath.append(' ');
+            }
+            classPath.append("libraries/").append(library.getPath());
+            if (library.getName().startsWith("net.fabricmc:fabric-loader:")) {
+                launcherClass = findLauncherClass(LocalMaven.resolve(library.getPath()));
+            }
+        }
+        if (launcherClass == null) {
+            throw new IOException("The Fabric loader is missing in the server profile");
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, launcherClass);
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath.toString());
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp);
+                 JarOutputStream jar = new JarOutputStream(out, manifest)) {
+                jar.putNextEntry(new ZipEntry("fabric-server-launch.properties"));
+                jar.write(("launch.mainClass=" + mainClass + "\n").getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Helper method to find the server launcher in the loader jar, it moved to the impl package with loader 0.12
+    private static String findLauncherClass(Path loaderJar) throws IOException {
+        try (ZipFile zip = new ZipFile(loaderJar.toFile())) {
+            for (String launcherClass : new String[] {
+                    "net.fabricmc.loader.impl.launch.server.FabricServerLauncher",
+                    "net.fabricmc.loader.launch.server.FabricServerLauncher"}) {
+                if (zip.getEntry(launcherClass.replace('.', '/') + ".class") != null) {
+                    return launcherClass;
+                }
+            }
+        }
+        throw new IOException("No server launcher found in " + loaderJar.getFileName());
+    }
+
+    @Override
+    public void start() {
+
+    }
+}
@@ -0,0 +1,106 @@
+package de.hellbz.MinecraftServerInstaller.Modules.MinecraftForge;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Forge-Versionen aus der maven-metadata.xml, gruppiert nach Minecraft-Version (neueste zuerst)
+class ForgeVersions {
+
+    private static final Pattern VERSION = Pattern.compile("<version>\\s*([^<\\s]+)\\s*</version>");
+    private static final Pattern RELEASE = Pattern.compile("\\d+(\\.\\d+)+");
+
+    // Minecraft-Version -> Forge-Versionen, beide in der Reihenfolge der Metadaten
+    private final Map<String, List<String>> versions = new LinkedHashMap<>();
+
+    // Method to parse the maven metadata, entries look like "1.20.1-47.2.0" (or "1.7.10-10.13.4.1614-1.7.10")
+    static ForgeVersions parse(String metadata) {
+        ForgeVersions forgeVersions = new ForgeVersions();
+        List<String> entries = new ArrayList<>();
+        Matcher matcher = VERSION.matcher(metadata);
+        while (matcher.find()) {
+            entries.add(matcher.group(1));
+        }
+        // Maven metadata usually lists the versions oldest first, the selection shows the newest first
+        if (entries.size() > 1 && compare(entries.get(0), entries.get(entries.size() - 1)) < 0) {
+            Collections.reverse(entries);
+        }
+        for (String entry : entries) {
+            int dash = entry.indexOf('-');
+            if (dash <= 0 || dash == entry.length() - 1) {
+                continue;
+            }
+            forgeVersions.versions.computeIfAbsent(entry.substring(0, dash), key -> new ArrayList<>()).add(entry.substring(dash + 1));
+        }
+        return forgeVersions;
+    }
+
+    // Method to get the Minecraft versions of a type ("Release", "Snapshot" or "All")
+    String[] getMinecraftVersions(String type) {
+        List<String> result = new ArrayList<>();
+        for (String minecraftVersion : versions.keySet()) {
+            boolean release = RELEASE.matcher(minecraftVersion).matches();
+            if (type == null || type.equalsIgnoreCase("all") || release == !type.equalsIgnoreCase("snapshot")) {
+                result.add(minecraftVersion);
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    // Method to get the Forge versions of a Minecraft version, the promoted ones (recommended, latest) first
+    String[] getForgeVersions(String minecraftVersion, JSONObject promotions) {
+        List<String> forgeVersions = versions.get(minecraftVersion);
+        if (forgeVersions == null) {
+            return new String[0];
+        }
+        List<String> result = new ArrayList<>();
+        if (promotions != null) {
+            for (String promotion : new String[] {"-recommended", "-latest"}) {
+                String promoted = find(forgeVersions, minecraftVersion, promotions.optString(minecraftVersion + promotion, null));
+                if (promoted != null && !result.contains(promoted)) {
+                    result.add(promoted);
+                }
+            }
+        }
+        for (String forgeVersion : forgeVersions) {
+            if (!result.contains(forgeVersion)) {
+                result.add(forgeVersion);
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    // Helper method to find a promoted version, promotions omit the "-<minecraft>" suffix of old versions
+    private static String find(List<String> forgeVersions, String minecraftVersion, String promoted) {
+        if (promoted == null) {
+            return null;
+        }
+        if (forgeVersions.contains(promoted)) {
+            return promoted;
+        }
+        String suffixed = promoted + "-" + minecraftVersion;
+        return forgeVersions.contains(suffixed) ? suffixed : null;
+    }
+
+    // Helper method to compare two metadata entries by their numeric parts
+    private static int compare(String first, String second) {
+        String[] a = first.split("[^0-9]+");
+        String[] b = second.split("[^0-9]+");
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            if (a[i].isEmpty() || b[i].isEmpty()) {
+                continue;
+            }
+            int result = Long.compare(Long.parseLong(a[i]), Long.parseLong(b[i]));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
@@ -0,0 +1,240 @@
+package de.hellbz.MinecraftServerInstaller.Modules.MinecraftForge;
+
+import de.hellbz.MinecraftServerInstaller.Utils.ArtifactStore;
+import de.hellbz.MinecraftServerInstaller.Utils.LocalMaven;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// install_profile.json und version.json eines Forge-Installers: Bibliotheken und Prozessoren
+class InstallProfile {
+
+    // Bibliotheken alter Installer (bis 1.12.2) ohne eigene URL liegen bei Mojang
+    private static final String LEGACY_LIBRARIES_URL = "https://libraries.minecraft.net/";
+
+    private final JSONObject profile;
+    private final JSONObject version;  // null for legacy profiles, their libraries are part of the profile
+    private final String installerSha1;
+
+    private InstallProfile(JSONObject profile, JSONObject version, String installerSha1) {
+        this.profile = profile;
+        this.version = version;
+        this.installerSha1 = installerSha1;
+    }
+
+    // Method to read the profile and the version JSON from an installer jar
+    static InstallProfile read(Path installer) throws IOException {
+        try (ZipFile zip = new ZipFile(installer.toFile())) {
+            JSONObject profile = readJson(zip, "install_profile.json");
+            if (profile == null) {
+                throw new IOException("install_profile.json is missing");
+            }
+            JSONObject version = null;
+            if (!isLegacy(profile)) {
+                String versionFile = profile.optString("json", "/version.json");
+                version = readJson(zip, versionFile.startsWith("/") ? versionFile.substring(1) : versionFile);
+            }
+            return new InstallProfile(profile, version, ArtifactStore.hash(installer, "SHA-1"));
+        }
+    }
+
+    // Method to check for the old format (up to 1.12.2) without processors
+    boolean isLegacy() {
+        return isLegacy(profile);
+    }
+
+    String getMinecraftVersion() {
+        return isLegacy() ? profile.getJSONObject("install").optString("minecraft") : profile.optString("minecraft");
+    }
+
+    // Method to get the libraries the installer needs: processor tools and runtime libraries
+    List<LocalMaven.Artifact> getLibraries() {
+        List<LocalMaven.Artifact> libraries = new ArrayList<>();
+        if (isLegacy()) {
+            addLegacyLibraries(libraries);
+        } else {
+            addLibraries(libraries, profile.optJSONArray("libraries"));
+            addLibraries(libraries, version != null ? version.optJSONArray("libraries") : null);
+        }
+        return libraries;
+    }
+
+    // Method to get the libraries the server needs at runtime, the processor tools are only needed by the installer
+    List<LocalMaven.Artifact> getRuntimeLibraries() {
+        List<LocalMaven.Artifact> libraries = new ArrayList<>();
+        if (isLegacy()) {
+            addLegacyLibraries(libraries);
+        } else {
+            addLibraries(libraries, version != null ? version.optJSONArray("libraries") : null);
+        }
+        return libraries;
+    }
+
+    // Method to get the files the installer writes, relative to the instance: the Forge jar and the processor outputs
+    // ("[maven]" data values). Libraries it only downloads are not part of it, those are provided beforehand.
+    Set<String> getOutputPaths() {
+        Set<String> outputs = new TreeSet<>();
+        if (isLegacy()) {
+            JSONObject install = profile.getJSONObject("install");
+            if (!install.optString("filePath", "").isEmpty()) {
+                outputs.add(install.getString("filePath"));
+            }
+            if (!install.optString("path", "").isEmpty()) {
+                outputs.add("libraries/" + LocalMaven.toPath(install.getString("path")));
+            }
+            return outputs;
+        }
+
+        if (!profile.optString("path", "").isEmpty()) {
+            outputs.add("libraries/" + LocalMaven.toPath(profile.getString("path")));
+        }
+        JSONObject data = profile.optJSONObject("data");
+        for (String key : data != null ? data.keySet() : new TreeSet<String>()) {
+            JSONObject value = data.optJSONObject(key);
+            String server = value != null ? value.optString("server", "") : "";
+            if (server.startsWith("[") && server.endsWith("]")) {
+                try {
+                    outputs.add("libraries/" + LocalMaven.toPath(server.substring(1, server.length() - 1)));
+                } catch (IllegalArgumentException e) {
+                    // Not a maven name, then it is no file in libraries/ either
+                }
+            }
+        }
+        for (LocalMaven.Artifact library : getLibraries()) {
+            outputs.remove("libraries/" + library.getPath());
+        }
+        return outputs;
+    }
+
+    // Method to compute the key of the processor outputs: SHA-256 over everything the processors read.
+    // These are the installer (its /data entries such as the binary patches), the Minecraft version (the vanilla jar),
+    // the data variables and per server processor the jar, classpath and arguments together with the sha1 of those jars.
+    String getProcessorKey() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // Part of every JRE
+        }
+        StringBuilder input = new StringBuilder();
+        input.append("installer=").append(installerSha1).append('\n');
+        input.append("minecraft=").append(getMinecraftVersion()).append('\n');
+        if (isLegacy()) {
+            input.append("install=").append(profile.getJSONObject("install").toString()).append('\n');
+        } else {
+            Map<String, String> librarySha1 = new HashMap<>();
+            for (LocalMaven.Artifact library : getLibraries()) {
+                librarySha1.put(library.getName(), library.getSha1());
+            }
+
+            JSONObject data = profile.optJSONObject("data");
+            for (String key : data != null ? new TreeSet<>(data.keySet()) : new TreeSet<String>()) {
+                JSONObject value = data.optJSONObject(key);
+                input.append("data.").append(key).append('=').append(value != null ? value.optString("server") : "").append('\n');
+            }
+
+            JSONArray processors = profile.optJSONArray("processors");
+            for (int i = 0; processors != null && i < processors.length(); i++) {
+                JSONObject processor = processors.getJSONObject(i);
+                if (!appliesToServer(processor)) {
+                    continue;
+                }
+                String jar = processor.getString("jar");
+                input.append("processor=").append(jar).append('@').append(librarySha1.get(jar)).append('\n');
+                JSONArray classpath = processor.optJSONArray("classpath");
+                for (int j = 0; classpath != null && j < classpath.length(); j++) {
+                    String entry = classpath.getString(j);
+                    input.append("classpath=").append(entry).append('@').append(librarySha1.get(entry)).append('\n');
+                }
+                JSONArray args = processor.optJSONArray("args");
+                for (int j = 0; args != null && j < args.length(); j++) {
+                    input.append("arg=").append(args.getString(j)).append('\n');
+                }
+            }
+        }
+        byte[] hash = digest.digest(input.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // Helper method to check the "sides" of a processor, processors without sides run for client and server
+    private static boolean appliesToServer(JSONObject processor) {
+        JSONArray sides = processor.optJSONArray("sides");
+        if (sides == null) {
+            return true;
+        }
+        for (int i = 0; i < sides.length(); i++) {
+            if ("server".equals(sides.optString(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Helper method to add the libraries of a legacy profile: versionInfo with maven names, serverreq and an optional repository URL
+    private void addLegacyLibraries(List<LocalMaven.Artifact> libraries) {
+        JSONArray entries = profile.getJSONObject("versionInfo").optJSONArray("libraries");
+        for (int i = 0; entries != null && i < entries.length(); i++) {
+            JSONObject library = entries.getJSONObject(i);
+            if (!library.optBoolean("serverreq", false)) {
+                continue;
+            }
+            JSONArray checksums = library.optJSONArray("checksums");
+            String sha1 = checksums != null && checksums.length() == 1 ? checksums.getString(0) : null;
+            libraries.add(LocalMaven.Artifact.of(library.getString("name"), library.optString("url", LEGACY_LIBRARIES_URL), sha1, -1));
+        }
+    }
+
+    // Helper method to add the libraries of a profile or version JSON, entries without URL are shipped inside the installer
+    private static void addLibraries(List<LocalMaven.Artifact> libraries, JSONArray entries) {
+        for (int i = 0; entries != null && i < entries.length(); i++) {
+            JSONObject library = entries.getJSONObject(i);
+            JSONObject downloads = library.optJSONObject("downloads");
+            JSONObject artifact = downloads != null ? downloads.optJSONObject("artifact") : null;
+            if (artifact == null || artifact.optString("url", "").isEmpty()) {
+                continue;
+            }
+            libraries.add(new LocalMaven.Artifact(library.getString("name"), artifact.optString("path", null),
+                    artifact.getString("url"), artifact.optString("sha1", null), artifact.optLong("size", -1)));
+        }
+    }
+
+    private static boolean isLegacy(JSONObject profile) {
+        return profile.has("install");
+    }
+
+    // Helper method to read a JSON file from the installer jar, null if it does not exist
+    private static JSONObject readJson(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            ByteArrayOutputStream data = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                data.write(buffer, 0, read);
+            }
+            return new JSONObject(new String(data.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -2,12 +2,37 @@ package de.hellbz.MinecraftServerInstaller.Modules.MinecraftForge;
 
 import de.hellbz.MinecraftServerInstaller.Data.Config;
 import de.hellbz.MinecraftServerInstaller.MinecraftServerInstaller;
+import de.hellbz.MinecraftServerInstaller.Utils.ArtifactStore;
+import de.hellbz.MinecraftServerInstaller.Utils.FileOperation;
+import de.hellbz.MinecraftServerInstaller.Utils.LocalMaven;
+import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
+import de.hellbz.MinecraftServerInstaller.Utils.ProcessHandler;
+import org.json.JSONObject;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 // Implementierung des Forge-Installers
 public class MinecraftForge implements MinecraftServerInstaller {
 
+    String className = this.getClass().getSimpleName();
+
+    // Forge-Maven mit den Versionen (maven-metadata.xml) und den Installern
+    String mavenURL = "https://maven.minecraftforge.net/net/minecraftforge/forge/";
+    String promotionsURL = "https://files.minecraftforge.net/net/minecraftforge/forge/promotions_slim.json";
+
+    // Definiere die Pfade zu den Cache-Dateien
+    String metadataCacheFile = Config.tempFolder.resolve(className + "_maven-metadata.xml").toAbsolutePath().toString();
+    String promotionsCacheFile = Config.tempFolder.resolve(className + "_promotions.json").toAbsolutePath().toString();
+
+    // Initialize LoggerUtility after the config is loaded
+    Logger logger = LoggerUtility.getLogger(MinecraftForge.class);
+
     @Override
     public void init() {
         System.out.println("Forge Minecraft Installer initialized.");
@@ -15,7 +40,145 @@ public class MinecraftForge implements MinecraftServerInstaller {
 
     @Override
     public void install() {
-        System.out.println("Installing Forge Minecraft version: " + Config.selectedVersion + ", Forge version: " + Config.selectedSubVersion);
+        if (Config.selectedSubVersion == null) {
+            logger.severe("No Forge version selected.");
+            return;
+        }
+        String forgeVersion = Config.selectedVersion + "-" + Config.selectedSubVersion;
+        logger.info("Installing Forge Minecraft version: " + Config.selectedVersion + ", Forge version: " + Config.selectedSubVersion);
+
+        // Der Installer liegt wie jede Bibliothek im gemeinsamen Maven-Verzeichnis und wird nur einmal geladen
+        Path installer = fetchInstaller(forgeVersion);
+        if (installer == null) {
+            return;
+        }
+
+        InstallProfile profile;
+        try {
+            profile = InstallProfile.read(installer);
+        } catch (IOException e) {
+            logger.severe("Could not read the install profile of " + installer.getFileName() + ": " + e.getMessage());
+            return;
+        }
+        Path root = Config.rootFolder;
+
+        // Gleiche Prozessor-Eingaben ergeben gleiche Ausgaben: dann die gecachten Dateien verlinken statt den Installer
+        // laufen zu lassen. Es werden nur die Laufzeit-Bibliotheken gebraucht, nicht die Werkzeuge der Prozessoren.
+        String processorKey = Config.forgeProcessorCache ? profile.getProcessorKey() : null;
+        if (processorKey != null && ProcessorCache.contains(processorKey)) {
+            provideLibraries(profile.getRuntimeLibraries(), root);
+            try {
+                ProcessorCache.restore(processorKey, root);
+                logger.info("Forge " + forgeVersion + " installed from the processor cache.");
+                return;
+            } catch (IOException e) {
+                logger.warning("Could not reuse the cached installer outputs, running the installer: " + e.getMessage());
+            }
+        }
+
+        // Alle Bibliotheken aus install_profile.json und version.json parallel und per sha1 geprüft vorab laden,
+        // der Installer findet sie dann in libraries/ und lädt sie nicht mehr einzeln nacheinander
+        provideLibraries(profile.getLibraries(), root);
+
+        Map<String, String> before = null;
+        if (processorKey != null) {
+            try {
+                before = ProcessorCache.snapshot(root);
+                // Über eine frühere Installation desselben Builds überspringen die Prozessoren fertige Ausgaben,
+                // die Liste der geänderten Dateien wäre dann unvollständig
+                for (String output : profile.getOutputPaths()) {
+                    if (before.containsKey(output)) {
+                        logger.fine("Not caching the installer outputs, " + output + " already exists here.");
+                        before = null;
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warning("Could not scan " + root + ", the installer outputs are not cached: " + e.getMessage());
+            }
+        }
+
+        if (runInstaller(installer) && before != null) {
+            try {
+                ProcessorCache.store(processorKey, root, before);
+            } catch (IOException e) {
+                logger.warning("Could not cache the installer outputs: " + e.getMessage());
+            }
+        }
+    }
+
+    // Helper method to fetch libraries into the local maven repository (in parallel) and link them into the instance
+    private void provideLibraries(List<LocalMaven.Artifact> libraries, Path root) {
+        int failed = LocalMaven.fetchAll(libraries);
+        if (failed > 0) {
+            logger.warning(failed + " libraries could not be fetched, the Forge installer will try to download them itself.");
+        }
+        try {
+            LocalMaven.linkInto(libraries, root.resolve("libraries"));
+        } catch (IOException e) {
+            logger.warning("Could not link the libraries into " + root + ": " + e.getMessage());
+        }
+    }
+
+    // Helper method to get the installer jar from the local maven repository, downloads it (sha1 verified) if missing
+    private Path fetchInstaller(String forgeVersion) {
+        String installerPath = "net/minecraftforge/forge/" + forgeVersion + "/forge-" + forgeVersion + "-installer.jar";
+        Path installer = LocalMaven.resolve(installerPath);
+        if (Files.isRegularFile(installer)) {
+            logger.info("Using installer from the local repository: " + installer.getFileName());
+            return installer;
+        }
+
+        String installerURL = mavenURL + forgeVersion + "/forge-" + forgeVersion + "-installer.jar";
+        // Forge veröffentlicht zu jedem Artefakt eine .sha1-Datei, damit landet der Installer auch im Artifact-Store
+        FileOperation checksum = FileOperation.getFile(installerURL + ".sha1").fetch();
+        String sha1 = checksum.getResponseCode() == 200 || checksum.getResponseCode() == 304 ? checksum.getContent().trim() : null;
+        if (sha1 != null && !sha1.matches("[0-9a-fA-F]{40}")) {
+            sha1 = null;
+        }
+
+        FileOperation download = FileOperation.getFile(installerURL)
+                .expectHash(sha1)
+                .resumable(installer.toString())
+                .fetchBinaryWithProgressBar()
+                .saveTo(installer.toString());
+        if (!Files.isRegularFile(installer)) {
+            logger.severe("Failed to fetch the Forge installer " + installerURL + ". Response code: " + download.getResponseCode());
+            return null;
+        }
+        return installer;
+    }
+
+    // Helper method to run the Forge installer headless, it only has to run the processors and extract its own files now.
+    // Returns true if the installer finished successfully.
+    private boolean runInstaller(Path installer) {
+        try {
+            // Im Temp-Ordner ausführen: der Installer schreibt sein Log neben die Jar und nicht ins Maven-Verzeichnis
+            Path runInstaller = Config.tempFolder.resolve(installer.getFileName());
+            ArtifactStore.link(installer, runInstaller);
+
+            Process process = ProcessHandler.create(runInstaller.toString())
+                    .workDir(Config.rootFolder)
+                    .addParameter("--installServer")
+                    .addParameter(Config.rootFolder.toString())
+                    .useLogger("install")  // Ausgabe des Installers ins Install-Log
+                    .useConsole(false)
+                    .disableInput()
+                    .start();
+
+            int exitCode = process.waitFor();
+            if (exitCode == 0) {
+                logger.info("Forge installer completed successfully.");
+                return true;
+            }
+            logger.severe("Forge installer completed with exit code: " + exitCode);
+        } catch (IOException e) {
+            logger.severe("Error starting the Forge installer: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.severe("Interrupted while waiting for the Forge installer.");
+        }
+        return false;
     }
 
     @Override
@@ -35,19 +198,46 @@ public class MinecraftForge implements MinecraftServerInstaller {
 
     @Override
     public String[] getAvailableVersions() {
-        return new String[] {"1.20.2", "1.19.4"};  // Beispielhafte Forge-Versionen
+        ForgeVersions versions = loadVersions();
+        if (versions == null) {
+            return new String[0];
+        }
+        // Nach dem globalen Filter Config.selectedType gefilterte Minecraft-Versionen ("All" liefert alle)
+        return versions.getMinecraftVersions(Config.selectedType);
     }
 
     @Override
     public String[] getAvailableSubVersions() {
-        if ("1.20.2".equals( Config.selectedVersion)) {
-            return new String[] {"36.1.0", "36.1.1"};  // Beispielhafte Sub-Versionen
+        ForgeVersions versions = loadVersions();
+        if (versions == null) {
+            return new String[0];
+        }
+        // Empfohlene und neueste Forge-Version zuerst, fehlen die Promotions, bleibt die Reihenfolge der Metadaten
+        FileOperation promotions = FileOperation.getFile(promotionsURL)
+                .cache(promotionsCacheFile)
+                .fetch();
+        JSONObject promos = promotions.getResponseCode() == 200 || promotions.getResponseCode() == 304
+                ? promotions.asJson().optJSONObject("promos") : null;
+        return versions.getForgeVersions(Config.selectedVersion, promos);
+    }
+
+    // Helper method to fetch the maven metadata (cached) and get the parsed versions, parsed only once per run
+    private ForgeVersions loadVersions() {
+        FileOperation downloadResult = FileOperation.getFile(mavenURL + "maven-metadata.xml")
+                .cache(metadataCacheFile)  // Prüft den Cache und fragt nach Ablauf von Cache-Control max-age beim Server nach
+                .fetch();
+
+        if (downloadResult.getResponseCode() != 200 && downloadResult.getResponseCode() != 304) {
+            logger.severe("Failed to fetch the Forge version list. Response code: " + downloadResult.getResponseCode());
+            return null;
         }
-        return new String[0];
+        return downloadResult.getParsed(ForgeVersions.class, ForgeVersions::parse);
     }
 
     @Override
     public Pattern getStartFile() {
-        return null;
+        // Ab 1.17 startet Forge über run.sh / run.bat, ältere Versionen über die Forge-Jar
+        String patternString = ".*(forge-(?!.*installer).*\\.jar|run\\.(sh|bat))";
+        return Pattern.compile(patternString);
     }
 }
@@ -0,0 +1,172 @@
+package de.hellbz.MinecraftServerInstaller.Modules.MinecraftForge;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import de.hellbz.MinecraftServerInstaller.Utils.ArtifactStore;
+import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+// Cache der Installer-Ausgaben (Prozessoren, entpackte Forge-Jars, Startskripte) je Prozessor-Schlüssel.
+// Die Dateien liegen per sha1 im Artifact-Store, msi_data/processors/<key>.json listet sie mit ihrem Pfad in der Instanz.
+class ProcessorCache {
+
+    private static final Logger logger = LoggerUtility.getLogger(ProcessorCache.class);
+
+    // Method to check if the outputs of a key are cached and all their objects still exist
+    static boolean contains(String key) {
+        Map<String, String> files = readManifest(key);
+        if (files == null) {
+            return false;
+        }
+        for (String sha1 : files.values()) {
+            if (!ArtifactStore.contains(sha1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Method to place the cached outputs in an instance, jars are hardlinked and scripts/configs are copied
+    static void restore(String key, Path root) throws IOException {
+        Map<String, String> files = readManifest(key);
+        if (files == null) {
+            throw new IOException("No cached outputs for " + key);
+        }
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path target = root.resolve(file.getKey());
+            if (isShared(file.getKey())) {
+                ArtifactStore.linkTo(file.getValue(), target);
+            } else if (file.getKey().equals("user_jvm_args.txt") && Files.exists(target)) {
+                continue;  // Von Hand angepasste JVM-Argumente der Instanz behalten
+            } else {
+                // Editierbare Dateien nie verlinken, eine Änderung würde sonst alle Instanzen treffen
+                Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".tmp");
+                Files.copy(ArtifactStore.resolve(file.getValue()), temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                if (target.getFileName().toString().endsWith(".sh")) {
+                    target.toFile().setExecutable(true);
+                }
+            }
+        }
+        logger.info("Reused " + files.size() + " cached installer outputs (" + key.substring(0, 12) + ").");
+    }
+
+    // Method to record size and modification time of the files the installer may write: libraries/ and the instance root
+    static Map<String, String> snapshot(Path root) throws IOException {
+        Map<String, String> state = new HashMap<>();
+        for (Path file : listOutputs(root)) {
+            state.put(relative(root, file), Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis());
+        }
+        return state;
+    }
+
+    // Method to store the files the installer created or changed since the snapshot
+    static void store(String key, Path root, Map<String, String> before) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        for (Path file : listOutputs(root)) {
+            String path = relative(root, file);
+            String state = Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+            if (state.equals(before.get(path))) {
+                continue;
+            }
+            String sha1 = ArtifactStore.hash(file, "SHA-1");
+            if (!ArtifactStore.contains(sha1)) {
+                storeObject(file, sha1);
+            }
+            files.put(path, sha1);
+        }
+
+        JSONObject manifest = new JSONObject();
+        manifest.put("created", System.currentTimeMillis());
+        manifest.put("files", files);
+        Path manifestFile = getManifestFile(key);
+        Files.createDirectories(manifestFile.getParent());
+        Path temp = Files.createTempFile(manifestFile.getParent(), "." + manifestFile.getFileName(), ".tmp");
+        Files.write(temp, manifest.toString(2).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, manifestFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Cached " + files.size() + " installer outputs (" + key.substring(0, 12) + ").");
+    }
+
+    // Helper method to put a copy of an output into the store. Never a hardlink of the instance file:
+    // an edit in place in this instance (e.g. a replaced library) would otherwise change the cache of all instances.
+    private static void storeObject(Path file, String sha1) throws IOException {
+        Path object = ArtifactStore.resolve(sha1);
+        Files.createDirectories(object.getParent());
+        Path temp = Files.createTempFile(object.getParent(), "." + sha1, ".tmp");
+        try {
+            Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+            ArtifactStore.put(temp, sha1);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Helper method to decide how an output is placed: jars and everything in libraries/ never change and are shared
+    private static boolean isShared(String path) {
+        return path.startsWith("libraries/") || path.endsWith(".jar");
+    }
+
+    // Helper method to list the candidate outputs: all files in libraries/ and the files directly in the instance root
+    private static Iterable<Path> listOutputs(Path root) throws IOException {
+        Map<String, Path> outputs = new TreeMap<>();
+        Path libraries = root.resolve("libraries");
+        if (Files.isDirectory(libraries)) {
+            try (Stream<Path> stream = Files.walk(libraries)) {
+                stream.filter(Files::isRegularFile).filter(ProcessorCache::isFinished).forEach(file -> outputs.put(file.toString(), file));
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && isFinished(file)) {
+                    outputs.put(file.toString(), file);
+                }
+            }
+        }
+        return outputs.values();
+    }
+
+    // Helper method to skip leftovers of interrupted downloads and writes
+    private static boolean isFinished(Path file) {
+        String name = file.getFileName().toString();
+        return !name.endsWith(".tmp") && !name.endsWith(".part") && !name.endsWith(".part.properties");
+    }
+
+    private static String relative(Path root, Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static Path getManifestFile(String key) {
+        return Config.processorsFolder.resolve(key + ".json");
+    }
+
+    // Helper method to read the list of outputs (path in the instance -> sha1), null if the key is not cached
+    private static Map<String, String> readManifest(String key) {
+        Path manifestFile = getManifestFile(key);
+        if (!Files.isRegularFile(manifestFile)) {
+            return null;
+        }
+        try {
+            JSONObject files = new JSONObject(new String(Files.readAllBytes(manifestFile), StandardCharsets.UTF_8)).getJSONObject("files");
+            Map<String, String> result = new TreeMap<>();
+            for (String path : files.keySet()) {
+                result.put(path, files.getString(path));
+            }
+            return result;
+        } catch (IOException | JSONException e) {
+            logger.warning("Ignoring damaged processor cache entry " + manifestFile.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -2,28 +2,33 @@ package de.hellbz.MinecraftServerInstaller.Modules.MinecraftVanilla;
 
 import de.hellbz.MinecraftServerInstaller.MinecraftServerInstaller;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 import de.hellbz.MinecraftServerInstaller.Data.Config;
+import de.hellbz.MinecraftServerInstaller.Utils.ArtifactStore;
 import de.hellbz.MinecraftServerInstaller.Utils.FileOperation;
 import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import static de.hellbz.MinecraftServerInstaller.Utils.FileOperation.resolveBaseToFolder;
+import de.hellbz.MinecraftServerInstaller.Utils.MinecraftServerJar;
+import de.hellbz.MinecraftServerInstaller.Utils.VersionIndex;
 
 // Implementierung des Vanilla-Installers
 public class MinecraftVanilla implements MinecraftServerInstaller {
 
     String className = this.getClass().getSimpleName();
 
-    // Definiere den Pfad zur Cache-Datei
-    String cacheFile = Config.tempFolder.resolve( className + "_versions.json").toAbsolutePath().toString();
+    // Das v2-Manifest enthält den sha1 jeder Versions-JSON, die damit dauerhaft im Artifact-Store liegen kann
+    String versionFileURL = MinecraftServerJar.MANIFEST_URL;
 
-    String versionFileURL = "https://piston-meta.mojang.com/mc/game/version_manifest.json";
+    // Laufende Hintergrund-Downloads der Versions-JSONs, nach URL (geteilt mit install())
+    private static final Map<String, CompletableFuture<Void>> prefetches = new ConcurrentHashMap<>();
+    private static ExecutorService prefetchExecutor;
 
     // Initialize LoggerUtility after the config is loaded
     Logger logger = LoggerUtility.getLogger(MinecraftVanilla.class);
@@ -45,41 +50,42 @@ public class MinecraftVanilla implements MinecraftServerInstaller {
 
     @Override
     public String[] getAvailableVersions() {
-
-        // Verwende FileOperation, um die Datei herunterzuladen und zu cachen
-        FileOperation downloadResult = FileOperation.getFile(versionFileURL)
-                .fetch()
-                .cache(60000, cacheFile);  // Prüft den Cache und lädt die Datei nur neu, wenn der Cache abgelaufen ist
-
-        // Überprüfe den ResponseCode, um zu sehen, ob die Datei aus dem Cache oder von der URL geladen wurde
-        if (downloadResult.getResponseCode() == 200) {
-            logger.info("File successfully fetched from URL and saved.");
-        } else if (downloadResult.getResponseCode() == 304) {
-            logger.info("File loaded from cache.");
-        } else {
-            logger.severe("Failed to fetch the file. Response code: " + downloadResult.getResponseCode());
+        VersionIndex index = MinecraftServerJar.loadVersionIndex();  // Cache-Datei und Index teilt sich Vanilla mit Fabric
+        if (index == null) {
+            return new String[0];
         }
+        // Während der Auswahl die Details der neuesten Releases schon laden
+        prefetchVersionDetails(index);
 
-        // JSON parsen und "versions" Array extrahieren
-        JSONObject jsonObj = new JSONObject(downloadResult.getContent());
-        JSONArray versionsArray = jsonObj.getJSONArray("versions");
-
-        // Verwende eine dynamische Liste anstelle eines Arrays
-        List<String> versionIds = new ArrayList<>();
-
-        // Durch das "versions" Array iterieren und die "id" Werte extrahieren
-        for (int i = 0; i < versionsArray.length(); i++) {
-            JSONObject versionObj = versionsArray.getJSONObject(i);
-            String type = versionObj.getString("type");
+        // Nach dem globalen Filter Config.selectedType gefilterte IDs ("All" liefert alle)
+        return index.getIds(Config.selectedType);
+    }
 
-            // Überprüfe den globalen Filter Config.selectedType
-            if ("all".equalsIgnoreCase(Config.selectedType) || type.equalsIgnoreCase(Config.selectedType)) {
-                versionIds.add(versionObj.getString("id"));  // Dynamisch in die Liste einfügen
+    // Helper method to fetch the version JSONs of the newest releases in the background, install() then finds them in the store
+    private void prefetchVersionDetails(VersionIndex index) {
+        String[] releases = index.getIds("release");
+        for (int i = 0; i < Math.min(Config.prefetchVersions, releases.length); i++) {
+            int position = index.indexOf(releases[i]);
+            String url = index.getUrl(position);
+            String sha1 = index.getSha1(position);
+            if (sha1 == null || ArtifactStore.contains(sha1)) {
+                continue;
             }
+            prefetches.computeIfAbsent(url, key -> CompletableFuture.runAsync(
+                    () -> FileOperation.getFile(key).expectHash(sha1).fetch(), getPrefetchExecutor()));
+        }
+    }
 
+    // Helper method to create the daemon threads for the prefetch, they never delay the exit
+    private static synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(Config.prefetchVersions, Config.downloadThreads)), runnable -> {
+                Thread thread = new Thread(runnable, "msi-version-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
-        // Konvertiere die dynamische Liste in ein Array und gib es zurück
-        return versionIds.toArray(new String[0]);
+        return prefetchExecutor;
     }
 
     @Override
@@ -97,66 +103,32 @@ public class MinecraftVanilla implements MinecraftServerInstaller {
     public void install() {
          logger.info("Installing Vanilla Minecraft version: " + Config.selectedVersion);
 
-        // Verwende FileOperation, um die Datei herunterzuladen und zu cachen
-        FileOperation downloadResult = FileOperation.getFile("https://piston-meta.mojang.com/mc/game/version_manifest.json")
-                .fetch()
-                .cache(60000, cacheFile );  // Prüft den Cache und lädt die Datei nur neu, wenn der Cache abgelaufen ist
+        VersionIndex index = MinecraftServerJar.loadVersionIndex();
+        if (index == null) {
+            return;
+        }
 
-        // Überprüfe den ResponseCode
-        if (downloadResult.getResponseCode() != 200 && downloadResult.getResponseCode() != 304) {
-            logger.severe ("Failed to fetch the version manifest file. Response code: " + downloadResult.getResponseCode());
+        // Die gesuchte Version direkt über ihre ID nachschlagen
+        int position = index.indexOf(Config.selectedVersion);
+        if (position < 0) {
+            logger.severe("Version " + Config.selectedVersion + " not found in the version manifest.");
             return;
         }
+        String versionUrl = index.getUrl(position);
 
-        // JSON parsen und das "versions" Array extrahieren
-        JSONObject jsonObj = new JSONObject(downloadResult.getContent());
-        JSONArray versionsArray = jsonObj.getJSONArray("versions");
-
-        // Durch das "versions" Array iterieren, um die passende Version zu finden
-        for (int i = 0; i < versionsArray.length(); i++) {
-            JSONObject versionObj = versionsArray.getJSONObject(i);
-
-            // Wenn die "id" der gesuchten Version entspricht
-            if (versionObj.getString("id").equals(Config.selectedVersion)) {
-                String type = versionObj.getString("type");
-                String versionUrl = versionObj.getString("url");
-                String time = versionObj.getString("time");
-                String releaseTime = versionObj.getString("releaseTime");
-
-                System.out.println("Version ID: " + Config.selectedVersion);
-                System.out.println("Type: " + type);
-                System.out.println("URL: " + versionUrl);
-                System.out.println("Time: " + time);
-                System.out.println("Release Time: " + releaseTime);
-
-                // Jetzt die URL aufrufen, um weitere Daten zu holen
-                FileOperation versionDetailsDownload = FileOperation.getFile(versionUrl).fetch();
-
-                if (versionDetailsDownload.getResponseCode() == 200) {
-                    JSONObject versionDetails = new JSONObject(versionDetailsDownload.getContent());
-
-                    // Beispiel: Die "downloads -> server -> url" Information extrahieren
-                    if (versionDetails.has("downloads")) {
-                        JSONObject downloads = versionDetails.getJSONObject("downloads");
-                        if (downloads.has("server")) {
-                            String serverDownloadUrl = downloads.getJSONObject("server").getString("url");
-                            logger.info("Server download URL: " + serverDownloadUrl);
-
-                            String targetFile = resolveBaseToFolder(Config.rootFolder, serverDownloadUrl);
-                            // Lade die Datei herunter und speichere sie im richtigen Verzeichnis
-                            FileOperation.getFile(serverDownloadUrl).fetchBinaryWithProgressBar().saveTo( targetFile );
-                        } else {
-                            logger.warning("No server download available for this version.");
-                        }
-                    } else {
-                        logger.warning("No downloads section available in the version details.");
-                    }
-                } else {
-                    logger.severe("Failed to fetch version details. Response code: " + versionDetailsDownload.getResponseCode());
-                }
-                break;  // Version gefunden, Schleife abbrechen
-            }
+        System.out.println("Version ID: " + Config.selectedVersion);
+        System.out.println("Type: " + index.getType(position));
+        System.out.println("URL: " + versionUrl);
+        System.out.println("Release Time: " + Instant.ofEpochMilli(index.getReleaseTime(position)));
+
+        // Läuft noch ein Prefetch dieser Version, auf ihn warten statt doppelt zu laden
+        CompletableFuture<Void> prefetch = prefetches.get(versionUrl);
+        if (prefetch != null) {
+            prefetch.join();
         }
+
+        // Jetzt die URL aufrufen (oder die Versions-JSON per sha1 aus dem Artifact-Store nehmen) und die Server-Jar laden
+        MinecraftServerJar.fetchFromVersionJson(versionUrl, index.getSha1(position), Config.rootFolder);
     }
 
     @Override
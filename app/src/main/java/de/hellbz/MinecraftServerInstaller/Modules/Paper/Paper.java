@@ -0,0 +1,245 @@
+package de.hellbz.MinecraftServerInstaller.Modules.Paper;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import de.hellbz.MinecraftServerInstaller.MinecraftServerInstaller;
+import de.hellbz.MinecraftServerInstaller.Utils.ArtifactStore;
+import de.hellbz.MinecraftServerInstaller.Utils.FileOperation;
+import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
+import de.hellbz.MinecraftServerInstaller.Utils.ProcessHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Implementierung des Paper-Installers
+public class Paper implements MinecraftServerInstaller {
+
+    String className = this.getClass().getSimpleName();
+
+    // Paper-Downloads-API mit Versionen, Builds und sha256 der Jars
+    String apiURL = "https://api.papermc.io/v2/projects/paper";
+
+    // Definiere den Pfad zur Cache-Datei der Versionsliste (die Build-Listen liegen je Version daneben)
+    String versionsCacheFile = Config.tempFolder.resolve(className + "_versions.json").toAbsolutePath().toString();
+
+    private static final Pattern RELEASE = Pattern.compile("\\d+(\\.\\d+)+");
+
+    // Initialize LoggerUtility after the config is loaded
+    Logger logger = LoggerUtility.getLogger(Paper.class);
+
+    @Override
+    public void init() {
+        System.out.println("Paper Minecraft Installer initialized.");
+    }
+
+    @Override
+    public String getInstallerName() {
+        return "Minecraft-Paper";
+    }
+
+    @Override
+    public String[] getAvailableTypes() {
+        return new String[] {"Release", "Snapshot", "All"};
+    }
+
+    @Override
+    public String[] getAvailableVersions() {
+        FileOperation downloadResult = FileOperation.getFile(apiURL)
+                .cache(versionsCacheFile)  // Prüft den Cache und fragt nach Ablauf von Cache-Control max-age beim Server nach
+                .fetch();
+        if (downloadResult.getResponseCode() != 200 && downloadResult.getResponseCode() != 304) {
+            logger.severe("Failed to fetch the Paper versions. Response code: " + downloadResult.getResponseCode());
+            return new String[0];
+        }
+
+        // Die API liefert die älteste Version zuerst, nach dem globalen Filter Config.selectedType gefiltert
+        JSONArray versions = downloadResult.asJson().getJSONArray("versions");
+        List<String> result = new ArrayList<>();
+        for (int i = versions.length() - 1; i >= 0; i--) {
+            String version = versions.getString(i);
+            boolean release = RELEASE.matcher(version).matches();
+            if (Config.selectedType == null || Config.selectedType.equalsIgnoreCase("all") || release == !Config.selectedType.equalsIgnoreCase("snapshot")) {
+                result.add(version);
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getAvailableSubVersions() {
+        JSONArray builds = fetchBuilds(Config.selectedVersion);
+        if (builds == null) {
+            return new String[0];
+        }
+        // Neuester Build zuerst
+        List<String> result = new ArrayList<>();
+        for (int i = builds.length() - 1; i >= 0; i--) {
+            result.add(String.valueOf(builds.getJSONObject(i).getInt("build")));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    // Helper method to fetch the builds of a version (cached), oldest first
+    private JSONArray fetchBuilds(String version) {
+        String cacheFile = Config.tempFolder.resolve(className + "_" + version + "_builds.json").toAbsolutePath().toString();
+        FileOperation downloadResult = FileOperation.getFile(apiURL + "/versions/" + version + "/builds")
+                .cache(cacheFile)
+                .fetch();
+        if (downloadResult.getResponseCode() != 200 && downloadResult.getResponseCode() != 304) {
+            logger.severe("Failed to fetch the Paper builds of " + version + ". Response code: " + downloadResult.getResponseCode());
+            return null;
+        }
+        return downloadResult.asJson().getJSONArray("builds");
+    }
+
+    @Override
+    public Pattern getStartFile() {
+        String patternString = ".*paper-.*\\.jar";
+        return Pattern.compile(patternString);
+    }
+
+    @Override
+    public void install() {
+        String version = Config.selectedVersion;
+        String build = Config.selectedSubVersion;
+        if (build == null) {
+            logger.severe("No Paper build selected.");
+            return;
+        }
+        logger.info("Installing Paper Minecraft version: " + version + ", Build: " + build);
+
+        JSONObject application = findApplication(version, build);
+        if (application == null) {
+            logger.severe("Paper build " + build + " of " + version + " not found.");
+            return;
+        }
+        String jarName = application.getString("name");
+        String downloadURL = apiURL + "/versions/" + version + "/builds/" + build + "/downloads/" + jarName;
+
+        // Paperclip-Jar per sha256 über den Artifact-Store laden und in die Instanz legen
+        Path root = Config.rootFolder;
+        Path paperclip = root.resolve(jarName);
+        FileOperation download = FileOperation.getFile(downloadURL)
+                .expectHash("SHA-256", application.optString("sha256", null))
+                .resumable(paperclip.toString())
+                .fetchBinaryWithProgressBar()
+                .saveTo(paperclip.toString());
+        if (!Files.isRegularFile(paperclip)) {
+            logger.severe("Failed to fetch " + jarName + ". Response code: " + download.getResponseCode());
+            return;
+        }
+
+        // Das Patchen passiert einmal je Build im gemeinsamen Cache, die Instanzen bekommen Hardlinks der Ergebnisse.
+        // Paperclip findet beim Start die gepatchte Jar und die Bibliotheken mit passendem Hash und patcht nicht erneut.
+        Path patched = Config.patchedFolder.resolve(className.toLowerCase() + "-" + version + "-" + build);
+        if (!Files.isDirectory(patched) && !patch(paperclip, patched)) {
+            return;
+        }
+        try {
+            int linked = linkTree(patched, root);
+            logger.info("Linked " + linked + " pre-patched files of Paper " + version + " build " + build + " into " + root + ".");
+        } catch (IOException e) {
+            logger.severe("Could not link the pre-patched Paper files: " + e.getMessage());
+        }
+    }
+
+    // Helper method to find the "application" download (name and sha256) of a build
+    private JSONObject findApplication(String version, String build) {
+        JSONArray builds = fetchBuilds(version);
+        for (int i = 0; builds != null && i < builds.length(); i++) {
+            JSONObject entry = builds.getJSONObject(i);
+            if (String.valueOf(entry.getInt("build")).equals(build)) {
+                JSONObject downloads = entry.optJSONObject("downloads");
+                return downloads != null ? downloads.optJSONObject("application") : null;
+            }
+        }
+        return null;
+    }
+
+    // Helper method to run Paperclip with -Dpaperclip.patchonly=true in a fresh folder, which is moved into the cache when done.
+    // Returns true if the cache folder exists afterwards (also if another install finished the same build first).
+    private boolean patch(Path paperclip, Path patched) {
+        Path work = null;
+        try {
+            Files.createDirectories(patched.getParent());
+            work = Files.createTempDirectory(patched.getParent(), "." + patched.getFileName() + "-");
+            ArtifactStore.link(paperclip, work.resolve(paperclip.getFileName()));
+
+            logger.info("Patching " + paperclip.getFileName() + " once for all instances...");
+            Process process = ProcessHandler.create(paperclip.getFileName().toString())
+                    .workDir(work)
+                    .addJvmArgument("-Dpaperclip.patchonly=true")
+                    .useLogger("install")  // Ausgabe von Paperclip ins Install-Log
+                    .useConsole(false)
+                    .disableInput()
+                    .start();
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                logger.severe("Paperclip completed with exit code: " + exitCode);
+                return false;
+            }
+
+            // Die Paperclip-Jar selbst liegt schon in der Instanz, im Cache bleiben nur die Ergebnisse des Patchens
+            Files.delete(work.resolve(paperclip.getFileName()));
+            try {
+                Files.move(work, patched, StandardCopyOption.ATOMIC_MOVE);
+                work = null;
+            } catch (IOException e) {
+                if (!Files.isDirectory(patched)) {
+                    throw e;
+                }
+                logger.fine("Paper build was patched by another install in the meantime.");
+            }
+            return true;
+        } catch (IOException e) {
+            logger.severe("Error running Paperclip: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.severe("Interrupted while waiting for Paperclip.");
+        } finally {
+            if (work != null) {
+                deleteTree(work);
+            }
+        }
+        return false;
+    }
+
+    // Helper method to hardlink every file of a folder into the instance, returns the number of files
+    private static int linkTree(Path source, Path target) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(source)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            Path destination = target.resolve(source.relativize(file).toString());
+            ArtifactStore.link(file, destination);
+        }
+        return files.size();
+    }
+
+    // Helper method to remove the work folder of a failed patch run
+    private void deleteTree(Path folder) {
+        try (Stream<Path> stream = Files.walk(folder)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            logger.warning("Could not remove " + folder + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+
+    }
+}
@@ -0,0 +1,150 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+// Content-addressed store for downloaded artifacts, shared by all installs on this host (objects/ab/abcdef...)
+public class ArtifactStore {
+
+    private static final Logger logger = LoggerUtility.getLogger(ArtifactStore.class);
+
+    // Objects whose content matched their hash in this run. Objects are hardlinked into the instances,
+    // a file written in place there changes the object as well, so a hit is only trusted after one check.
+    private static final Set<String> verified = ConcurrentHashMap.newKeySet();
+
+    // Method to get the location of an object in the store
+    public static Path resolve(String hash) {
+        String normalized = hash.toLowerCase();
+        return Config.objectsFolder.resolve(normalized.substring(0, 2)).resolve(normalized);
+    }
+
+    // Method to check if an object is in the store and intact, the first check in a run hashes the object.
+    // A changed object is removed, the caller then downloads it again.
+    public static boolean contains(String hash) {
+        Path object = resolve(hash);
+        if (!Files.isRegularFile(object)) {
+            return false;
+        }
+        String normalized = hash.toLowerCase();
+        if (verified.contains(normalized)) {
+            return true;
+        }
+        String algorithm = getAlgorithm(normalized);
+        try {
+            if (algorithm == null || hash(object, algorithm).equals(normalized)) {
+                verified.add(normalized);
+                return true;
+            }
+            logger.warning("Stored object " + normalized + " was changed (written in place through a hardlink?), removing it.");
+            Files.deleteIfExists(object);
+        } catch (IOException e) {
+            logger.warning("Could not verify stored object " + normalized + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    // Method to move a verified file into the store, returns the location of the stored object
+    public static Path put(Path file, String hash) throws IOException {
+        Path object = resolve(hash);
+        String normalized = hash.toLowerCase();
+        Files.createDirectories(object.getParent());
+        if (Files.exists(object) && verified.contains(normalized)) {
+            // Same hash, same content: keep the existing object
+            Files.deleteIfExists(file);
+            return object;
+        }
+        // An unchecked existing object is replaced, it may have been changed through a hardlink.
+        // Instances linked to it keep their file, the rename only replaces the entry in the store.
+        try {
+            Files.move(file, object, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different file system: copy next to the object first, so readers never see a partial object
+            Path temp = object.resolveSibling(object.getFileName() + ".tmp");
+            Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(file);
+        }
+        verified.add(normalized);
+        logger.fine("Stored object " + hash);
+        return object;
+    }
+
+    // Method to place an object at the target path, uses a hardlink and falls back to a copy
+    public static void linkTo(String hash, Path target) throws IOException {
+        link(resolve(hash), target);
+    }
+
+    // Method to place any file at the target path, uses a hardlink and falls back to a copy
+    public static void link(Path source, Path target) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(target, source)) {
+            return;  // Already linked by an earlier install, a rename onto the same file would leave the temp link behind
+        }
+        Path temp = FileOperation.createSiblingTemp(target);
+        try {
+            // The link is created next to the target and renamed over it, so the target is never missing
+            Files.delete(temp);
+            Files.createLink(temp, source);
+            FileOperation.replaceAtomically(temp, target);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Hardlinks are not possible across file systems (or on some file systems at all)
+            Files.deleteIfExists(temp);
+            FileOperation.copyIntoPlace(source, target);
+        }
+    }
+
+    // Method to compute the hex digest of a file
+    public static String hash(Path file, String algorithm) throws IOException {
+        MessageDigest digest = createDigest(algorithm);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    // Helper method to get the algorithm of a hex digest by its length, null if the length is unknown
+    private static String getAlgorithm(String hash) {
+        switch (hash.length()) {
+            case 40:
+                return "SHA-1";
+            case 64:
+                return "SHA-256";
+            case 128:
+                return "SHA-512";
+            default:
+                return null;
+        }
+    }
+
+    // Helper method to create a MessageDigest, algorithms like "SHA-1" are part of every JRE
+    static MessageDigest createDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported hash algorithm: " + algorithm, e);
+        }
+    }
+
+    // Helper method to convert a digest to lower case hex
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
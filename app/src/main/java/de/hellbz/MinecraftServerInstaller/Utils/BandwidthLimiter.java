@@ -0,0 +1,120 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Token buckets shared by all downloads of the process, one global and one per host (limits in bytes per second, 0 = unlimited)
+public class BandwidthLimiter {
+
+    private static final Logger logger = LoggerUtility.getLogger(BandwidthLimiter.class);
+
+    private static final TokenBucket global = new TokenBucket(Config.bandwidthLimit);
+    private static final Map<String, TokenBucket> hosts = new ConcurrentHashMap<>();
+
+    // Refills at a fixed rate, readers may take more than is available and then wait until the debt is paid back
+    private static class TokenBucket {
+        private volatile long rate;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(long rate) {
+            this.rate = rate;
+        }
+
+        // Method to change the rate, already waiting readers keep their computed delay
+        synchronized void setRate(long rate) {
+            refill();
+            this.rate = rate;
+            this.tokens = Math.min(tokens, capacity());
+        }
+
+        // Method to take the bytes from the bucket, returns the time in nanoseconds the caller has to wait
+        synchronized long take(long bytes) {
+            long currentRate = rate;
+            if (currentRate <= 0) {
+                return 0;
+            }
+            refill();
+            tokens -= bytes;
+            return tokens >= 0 ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / currentRate);
+        }
+
+        // Helper method to add the tokens accumulated since the last call
+        private void refill() {
+            long now = System.nanoTime();
+            if (rate > 0) {
+                tokens = Math.min(capacity(), tokens + (now - lastRefill) * rate / (double) TimeUnit.SECONDS.toNanos(1));
+            }
+            lastRefill = now;
+        }
+
+        // Helper method for the burst size, a quarter second keeps the transfer smooth without hurting throughput
+        private double capacity() {
+            return Math.max(rate / 4.0, 16 * 1024);
+        }
+    }
+
+    // Method to account for received bytes and block until they fit into the global and the host limit
+    public static void acquire(String host, int bytes) throws InterruptedIOException {
+        long wait = global.take(bytes);
+        if (host != null) {
+            wait = Math.max(wait, bucketFor(host).take(bytes));
+        }
+        if (wait <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttling download from " + host);
+        }
+    }
+
+    // Method to change the global limit at runtime
+    public static void setGlobalLimit(long bytesPerSecond) {
+        Config.bandwidthLimit = Math.max(0, bytesPerSecond);
+        global.setRate(Config.bandwidthLimit);
+        logger.config("Global bandwidth limit set to " + describe(Config.bandwidthLimit));
+    }
+
+    // Method to change the limit of one host at runtime, a negative value falls back to bandwidthLimitPerHost
+    public static void setHostLimit(String host, long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            Config.hostBandwidthLimits.remove(host);
+        } else {
+            Config.hostBandwidthLimits.put(host, bytesPerSecond);
+        }
+        bucketFor(host).setRate(limitFor(host));
+        logger.config("Bandwidth limit for " + host + " set to " + describe(limitFor(host)));
+    }
+
+    // Method to apply the limits from the Config, called after the config has been (re)loaded
+    public static void applyConfig() {
+        global.setRate(Config.bandwidthLimit);
+        for (Map.Entry<String, TokenBucket> entry : hosts.entrySet()) {
+            entry.getValue().setRate(limitFor(entry.getKey()));
+        }
+    }
+
+    // Helper method to get the limit configured for a host
+    private static long limitFor(String host) {
+        Long limit = Config.hostBandwidthLimits.get(host);
+        return limit != null ? limit : Config.bandwidthLimitPerHost;
+    }
+
+    // Helper method to get or create the bucket of a host
+    private static TokenBucket bucketFor(String host) {
+        return hosts.computeIfAbsent(host, key -> new TokenBucket(limitFor(key)));
+    }
+
+    // Helper method for log output
+    private static String describe(long bytesPerSecond) {
+        return bytesPerSecond <= 0 ? "unlimited" : bytesPerSecond + " B/s";
+    }
+}
@@ -0,0 +1,173 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Runs a batch of downloads asynchronously on a bounded executor, see FileOperation.fetchAll()
+public class BatchFetch {
+
+    private static final Logger logger = LoggerUtility.getLogger(BatchFetch.class);
+
+    // Shared, bounded download threads. Connections per host are additionally capped by HostLimiter.
+    private static ExecutorService executor;
+
+    private final List<Spec> specs;
+    private final List<CompletableFuture<FileOperation>> futures = new ArrayList<>();
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final long bytesTotal;
+
+    // Description of one download of the batch
+    public static class Spec {
+        final String url;
+        final String target;
+        String hashAlgorithm;
+        String hash;
+        long size = -1;
+
+        // Constructor
+        public Spec(String url, String target) {
+            this.url = url;
+            this.target = target;
+        }
+
+        // Method to set the expected hash, the file is then verified and shared through the artifact store
+        public Spec hash(String algorithm, String hash) {
+            this.hashAlgorithm = algorithm;
+            this.hash = hash;
+            return this;
+        }
+
+        // Method to set the expected size in bytes, used for the aggregate progress
+        public Spec size(long size) {
+            this.size = size;
+            return this;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+    }
+
+    // Snapshot of the aggregate progress of a batch
+    public static class Progress {
+        public final int filesDone;
+        public final int filesFailed;
+        public final int filesTotal;
+        public final long bytesDone;
+        public final long bytesTotal;  // -1 if the size of at least one file is unknown
+
+        Progress(int filesDone, int filesFailed, int filesTotal, long bytesDone, long bytesTotal) {
+            this.filesDone = filesDone;
+            this.filesFailed = filesFailed;
+            this.filesTotal = filesTotal;
+            this.bytesDone = bytesDone;
+            this.bytesTotal = bytesTotal;
+        }
+
+        @Override
+        public String toString() {
+            return filesDone + "/" + filesTotal + " files" + (filesFailed > 0 ? " (" + filesFailed + " failed)" : "");
+        }
+    }
+
+    // Constructor
+    BatchFetch(List<Spec> specs) {
+        this.specs = new ArrayList<>(specs);
+        long total = 0;
+        for (Spec spec : specs) {
+            if (spec.size < 0) {
+                total = -1;
+                break;
+            }
+            total += spec.size;
+        }
+        this.bytesTotal = total;
+    }
+
+    // Method to submit all downloads of the batch
+    BatchFetch start() {
+        ExecutorService executor = getExecutor();
+        for (Spec spec : specs) {
+            futures.add(CompletableFuture.supplyAsync(() -> run(spec), executor));
+        }
+        logger.info("Fetching " + specs.size() + " files...");
+        return this;
+    }
+
+    // Getter for one future per spec, in the order of the specs
+    public List<CompletableFuture<FileOperation>> getFutures() {
+        return Collections.unmodifiableList(futures);
+    }
+
+    // Method to get a future that completes when all downloads are done, exceptionally if one failed
+    public CompletableFuture<Void> allOf() {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    // Method to get the current aggregate progress of the batch
+    public Progress getProgress() {
+        return new Progress(filesDone.get(), filesFailed.get(), specs.size(), bytesDone.get(), bytesTotal);
+    }
+
+    // Helper method to run one download on a worker thread
+    private FileOperation run(Spec spec) {
+        FileOperation operation = FileOperation.getFile(spec.url).transferCounter(bytesDone).expectSize(spec.size);
+        if (spec.hash != null) {
+            operation.expectHash(spec.hashAlgorithm, spec.hash);
+        }
+        operation.fetchBinary();
+
+        int responseCode = operation.getResponseCode();
+        if (responseCode == FileOperation.HASH_MISMATCH) {
+            filesFailed.incrementAndGet();
+            throw new CompletionException(new IOException("Hash mismatch for " + spec.url));
+        }
+        if ((responseCode < 200 || responseCode >= 300) && responseCode != 304) {
+            filesFailed.incrementAndGet();
+            throw new CompletionException(new IOException("Failed to fetch " + spec.url + " (HTTP " + responseCode + ")"));
+        }
+        if (spec.target != null) {
+            Path target = Paths.get(spec.target);
+            try {
+                operation.save(target);
+            } catch (IOException e) {
+                filesFailed.incrementAndGet();
+                throw new CompletionException(e);
+            }
+        }
+        filesDone.incrementAndGet();
+        return operation;
+    }
+
+    // Helper method to create the shared executor with the configured number of threads
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Config.downloadThreads, runnable -> {
+                Thread thread = new Thread(runnable, "msi-batch-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
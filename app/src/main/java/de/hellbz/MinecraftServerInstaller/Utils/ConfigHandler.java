@@ -6,6 +6,8 @@ import org.json.JSONObject;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
 
@@ -33,6 +35,60 @@ public class ConfigHandler {
             Config.logLevelCSV = properties.getProperty("logLevelCSV", "DEBUG");
             Config.detailedLog = Boolean.parseBoolean(properties.getProperty("detailedLog", "false"));
 
+            Config.downloadSegments = Math.max(1, parseInt("downloadSegments", Config.downloadSegments));
+            Config.segmentMinSize = Math.max(1, parseLong("segmentMinSize", Config.segmentMinSize));
+            Config.maxConnectionsPerHost = Math.max(1, parseInt("maxConnectionsPerHost", Config.maxConnectionsPerHost));
+            Config.downloadThreads = Math.max(1, parseInt("downloadThreads", Config.downloadThreads));
+            Config.httpKeepAlive = Boolean.parseBoolean(properties.getProperty("httpKeepAlive", String.valueOf(Config.httpKeepAlive)));
+            Config.tlsSessionCacheSize = Math.max(0, parseInt("tlsSessionCacheSize", Config.tlsSessionCacheSize));
+            Config.tlsSessionTimeout = Math.max(0, parseInt("tlsSessionTimeout", Config.tlsSessionTimeout));
+            Config.bandwidthLimit = Math.max(0, parseLong("bandwidthLimit", Config.bandwidthLimit));
+            Config.bandwidthLimitPerHost = Math.max(0, parseLong("bandwidthLimitPerHost", Config.bandwidthLimitPerHost));
+            Config.hostBandwidthLimits.clear();
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith("bandwidthLimit.")) {
+                    Config.hostBandwidthLimits.put(key.substring("bandwidthLimit.".length()), Math.max(0, parseLong(key, 0)));
+                }
+            }
+            BandwidthLimiter.applyConfig();
+            Config.progressUpdatesPerSecond = Math.max(1, parseInt("progressUpdatesPerSecond", Config.progressUpdatesPerSecond));
+            Config.progressLog = Boolean.parseBoolean(properties.getProperty("progressLog", String.valueOf(Config.progressLog)));
+            Config.progressJsonFile = properties.getProperty("progressJsonFile", Config.progressJsonFile).trim();
+            Config.mirrorIncludeOrigin = Boolean.parseBoolean(properties.getProperty("mirrorIncludeOrigin", String.valueOf(Config.mirrorIncludeOrigin)));
+            Config.mirrorFirstByteTimeout = Math.max(1, parseInt("mirrorFirstByteTimeout", Config.mirrorFirstByteTimeout));
+            Config.mirrors.clear();
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith("mirrors.")) {
+                    List<String> bases = new ArrayList<>();
+                    for (String base : properties.getProperty(key).split(",")) {
+                        if (!base.trim().isEmpty()) {
+                            bases.add(base.trim());
+                        }
+                    }
+                    Config.mirrors.put(key.substring("mirrors.".length()), bases);
+                }
+            }
+            MirrorRegistry.reset();
+            Config.memoCacheSize = Math.max(0, parseLong("memoCacheSize", Config.memoCacheSize));
+            Config.memoCacheTtl = Math.max(0, parseInt("memoCacheTtl", Config.memoCacheTtl));
+            Config.tempCacheSize = Math.max(0, parseLong("tempCacheSize", Config.tempCacheSize));
+            Config.tempCachePolicy = properties.getProperty("tempCachePolicy", Config.tempCachePolicy).trim();
+            if (!Config.tempCachePolicy.equalsIgnoreCase("LRU") && !Config.tempCachePolicy.equalsIgnoreCase("LFU")) {
+                logger.warning("Invalid value for tempCachePolicy: \"" + Config.tempCachePolicy + "\". Using LRU.");
+                Config.tempCachePolicy = "LRU";
+            }
+            Config.httpRetries = Math.max(0, parseInt("httpRetries", Config.httpRetries));
+            Config.retryBaseDelay = Math.max(1, parseInt("retryBaseDelay", Config.retryBaseDelay));
+            Config.retryMaxDelay = Math.max(Config.retryBaseDelay, parseInt("retryMaxDelay", Config.retryMaxDelay));
+            Config.readTimeout = Math.max(1, parseInt("readTimeout", Config.readTimeout));
+            Config.hedgeRequests = Boolean.parseBoolean(properties.getProperty("hedgeRequests", String.valueOf(Config.hedgeRequests)));
+            Config.hedgeDelay = Math.max(1, parseInt("hedgeDelay", Config.hedgeDelay));
+            Config.hedgeMinDelay = Math.max(1, parseInt("hedgeMinDelay", Config.hedgeMinDelay));
+            Config.prefetchVersions = Math.max(0, parseInt("prefetchVersions", Config.prefetchVersions));
+            Config.forgeProcessorCache = Boolean.parseBoolean(properties.getProperty("forgeProcessorCache", String.valueOf(Config.forgeProcessorCache)));
+            Config.modpack = properties.getProperty("modpack", Config.modpack).trim();
+            Config.downloadMetricsFile = properties.getProperty("downloadMetricsFile", Config.downloadMetricsFile).trim();
+
 
             logger.config("Configuration loaded from: " + Config.configFilePath.toAbsolutePath());
             LoggerUtility.updateLoggerConfig(Config.detailedLog, Config.logLevelConsole, Config.logLevelCSV, Config.logToFile);
@@ -45,6 +101,25 @@ public class ConfigHandler {
         }
     }
 
+    // Helper method to read an integer property, falls back to the default on missing or invalid values
+    private static int parseInt(String key, int defaultValue) {
+        return (int) parseLong(key, defaultValue);
+    }
+
+    // Helper method to read a long property, falls back to the default on missing or invalid values
+    private static long parseLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid value for " + key + ": \"" + value + "\". Using default " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
     // Method to copy the default config from resources to msi_data/config
     public static void createDefaultConfig() throws IOException {
 
@@ -92,6 +167,26 @@ public class ConfigHandler {
                 Files.createDirectories(Config.tempFolder);
                 logger.info("Created temp folder: " + Config.tempFolder.toAbsolutePath());
             }
+            if (!Files.exists(Config.objectsFolder)) {
+                Files.createDirectories(Config.objectsFolder);
+                logger.info("Created objects folder: " + Config.objectsFolder.toAbsolutePath());
+            }
+            if (!Files.exists(Config.indexFolder)) {
+                Files.createDirectories(Config.indexFolder);
+                logger.info("Created index folder: " + Config.indexFolder.toAbsolutePath());
+            }
+            if (!Files.exists(Config.librariesFolder)) {
+                Files.createDirectories(Config.librariesFolder);
+                logger.info("Created libraries folder: " + Config.librariesFolder.toAbsolutePath());
+            }
+            if (!Files.exists(Config.processorsFolder)) {
+                Files.createDirectories(Config.processorsFolder);
+                logger.info("Created processors folder: " + Config.processorsFolder.toAbsolutePath());
+            }
+            if (!Files.exists(Config.patchedFolder)) {
+                Files.createDirectories(Config.patchedFolder);
+                logger.info("Created patched folder: " + Config.patchedFolder.toAbsolutePath());
+            }
         }
 
     // Update or add a property in the config file
@@ -0,0 +1,70 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Draws the download progress as a bar with ▓ and ░ characters on the console
+public class ConsoleProgressRenderer implements ProgressListener {
+
+    private static final int BAR_LENGTH = 30;  // Length of the progress bar
+
+    private String initialTimestamp;
+
+    @Override
+    public void onProgress(ProgressEvent event) {
+        switch (event.getType()) {
+            case STARTED:
+                // Generate the timestamp once at the start
+                initialTimestamp = getFormattedTimestamp();
+                printProgressBar(event);
+                break;
+            case PROGRESS:
+                printProgressBar(event);
+                break;
+            case FINISHED:
+                printProgressBar(event);
+                System.out.println();  // Move to a new line after progress bar completion
+                break;
+            case FAILED:
+                System.out.println();  // Keep the bar of the failed download visible
+                break;
+        }
+    }
+
+    // Helper method to print the progress bar with the prefixed timestamp
+    private void printProgressBar(ProgressEvent event) {
+        int progress = event.getPercent();
+        StringBuilder bar = new StringBuilder(BAR_LENGTH + 3);
+        bar.append("[");
+        int filledLength = progress < 0 ? 0 : BAR_LENGTH * progress / 100;
+
+        // Create the filled portion of the bar using ▓
+        for (int i = 0; i < filledLength; i++) {
+            bar.append("▓");
+        }
+
+        // Create the unfilled portion of the bar using ░
+        for (int i = filledLength; i < BAR_LENGTH; i++) {
+            bar.append("░");
+        }
+
+        bar.append("] ");
+
+        // Print progress percentage and size information with the prefixed timestamp
+        String total = event.getBytesTotal() >= 0 ? ProgressEvent.formatSize(event.getBytesTotal()) : "?";
+        System.out.printf("\r%s %sDOWNLOAD" +
+                        ":%s %s %s (%s / %s) File: %s",
+                initialTimestamp,
+                ConsoleColors.PURPLE_BRIGHT, ConsoleColors.RESET,
+                bar.toString(), progress < 0 ? "?%" : progress + "%",
+                ProgressEvent.formatSize(event.getBytesDone()), total, event.getFileName());
+
+        System.out.flush();  // Ensure the progress bar is displayed in real-time
+    }
+
+    // Method to get the formatted timestamp
+    private static String getFormattedTimestamp() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        return "[" + LocalDateTime.now().format(formatter) + "]";
+    }
+}
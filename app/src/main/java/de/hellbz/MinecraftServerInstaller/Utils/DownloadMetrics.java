@@ -0,0 +1,324 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Aggregated request metrics of this run, in total and per host (the host that answered, so mirrors can be compared).
+// Fed by FileOperation with one RequestMetrics per fetch, dumped by MainInstaller at the end of the run.
+public class DownloadMetrics {
+
+    private static final Logger logger = LoggerUtility.getLogger(DownloadMetrics.class);
+
+    // Bucket upper bounds of the histograms, roughly logarithmic
+    private static final long[] MILLIS_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+    private static final long[] KIB_PER_SECOND_BOUNDS = {16, 64, 256, 1024, 4096, 16384, 65536, 262144};
+    private static final long MIN_THROUGHPUT_BYTES = 64 * 1024;  // Smaller bodies measure latency, not throughput
+
+    private static volatile Stats total = new Stats();
+    private static final Map<String, Stats> hosts = new TreeMap<>();
+
+    // The measured values, timings in milliseconds and throughput in KiB/s
+    public enum Metric {
+        DNS("ms", MILLIS_BOUNDS),
+        CONNECT("ms", MILLIS_BOUNDS),
+        TIME_TO_FIRST_BYTE("ms", MILLIS_BOUNDS),
+        DURATION("ms", MILLIS_BOUNDS),
+        THROUGHPUT("KiB/s", KIB_PER_SECOND_BOUNDS);
+
+        final String unit;
+        final long[] bounds;
+
+        Metric(String unit, long[] bounds) {
+            this.unit = unit;
+            this.bounds = bounds;
+        }
+    }
+
+    // Fixed bucket histogram, percentiles are reported as the upper bound of their bucket
+    public static class Histogram {
+        private final long[] bounds;
+        private final long[] counts;  // One more than bounds for the values above the last bound
+        private long count = 0;
+        private long sum = 0;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        Histogram(long[] bounds) {
+            this.bounds = bounds;
+            this.counts = new long[bounds.length + 1];
+        }
+
+        synchronized void record(long value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getMin() {
+            return count > 0 ? min : 0;
+        }
+
+        public synchronized long getMax() {
+            return count > 0 ? max : 0;
+        }
+
+        public synchronized double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        // Method to get an estimated percentile (0.5 = median), never larger than the maximum value
+        public synchronized long getPercentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return bucket < bounds.length ? Math.min(bounds[bucket], max) : max;
+                }
+            }
+            return max;
+        }
+
+        // Method to get the bucket counts as "<=bound: count", the last bucket is "+Inf"
+        public synchronized Map<String, Long> getBuckets() {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                buckets.put(bucket < bounds.length ? "<=" + bounds[bucket] : "+Inf", counts[bucket]);
+            }
+            return buckets;
+        }
+
+        synchronized JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("min", getMin());
+            json.put("mean", Math.round(getMean() * 10) / 10.0);
+            json.put("p50", getPercentile(0.5));
+            json.put("p95", getPercentile(0.95));
+            json.put("max", getMax());
+            JSONArray buckets = new JSONArray();  // Array, JSONObject would lose the bucket order
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                buckets.put(new JSONObject()
+                        .put("le", bucket < bounds.length ? String.valueOf(bounds[bucket]) : "+Inf")
+                        .put("count", counts[bucket]));
+            }
+            json.put("buckets", buckets);
+            return json;
+        }
+    }
+
+    // Histograms and counters of all requests or of one host
+    public static class Stats {
+        private final Map<Metric, Histogram> histograms = new EnumMap<>(Metric.class);
+        private final Map<RequestMetrics.Outcome, Long> outcomes = new EnumMap<>(RequestMetrics.Outcome.class);
+        private long requests = 0;
+        private long retries = 0;
+        private long bytesTransferred = 0;
+        private long bytesSaved = 0;
+
+        Stats() {
+            for (Metric metric : Metric.values()) {
+                histograms.put(metric, new Histogram(metric.bounds));
+            }
+        }
+
+        public Histogram getHistogram(Metric metric) {
+            return histograms.get(metric);
+        }
+
+        public synchronized long getRequests() {
+            return requests;
+        }
+
+        public synchronized long getOutcomeCount(RequestMetrics.Outcome outcome) {
+            return outcomes.getOrDefault(outcome, 0L);
+        }
+
+        public synchronized long getRetries() {
+            return retries;
+        }
+
+        public synchronized long getBytesTransferred() {
+            return bytesTransferred;
+        }
+
+        public synchronized long getBytesSaved() {
+            return bytesSaved;
+        }
+
+        // Helper method to add one finished request
+        void add(RequestMetrics request) {
+            synchronized (this) {
+                requests++;
+                outcomes.merge(request.getOutcome(), 1L, Long::sum);
+                retries += request.getRetries();
+                bytesTransferred += request.getBytesTransferred();
+                bytesSaved += request.getBytesSaved();
+            }
+            recordMillis(Metric.DNS, request.getDnsNanos());
+            recordMillis(Metric.CONNECT, request.getConnectNanos());
+            recordMillis(Metric.TIME_TO_FIRST_BYTE, request.getTimeToFirstByteNanos());
+            recordMillis(Metric.DURATION, request.getDurationNanos());
+            long bytesPerSecond = request.getBytesPerSecond();
+            if (bytesPerSecond > 0 && request.getBytesTransferred() >= MIN_THROUGHPUT_BYTES) {
+                histograms.get(Metric.THROUGHPUT).record(bytesPerSecond / 1024);
+            }
+        }
+
+        // Helper method to record a timing, requests served without network have no timings
+        private void recordMillis(Metric metric, long nanos) {
+            if (nanos >= 0) {
+                histograms.get(metric).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+            }
+        }
+
+        // Helper method for one line of the summary
+        synchronized String describe() {
+            StringBuilder line = new StringBuilder();
+            line.append(requests).append(" requests");
+            for (Map.Entry<RequestMetrics.Outcome, Long> outcome : outcomes.entrySet()) {
+                line.append(", ").append(outcome.getValue()).append(' ').append(outcome.getKey().name().toLowerCase());
+            }
+            line.append(", ").append(retries).append(" retries");
+            line.append(", transferred: ").append(ProgressEvent.formatSize(bytesTransferred));
+            line.append(", saved: ").append(ProgressEvent.formatSize(bytesSaved));
+            for (Metric metric : Metric.values()) {
+                Histogram histogram = histograms.get(metric);
+                if (histogram.getCount() > 0) {
+                    line.append(", ").append(metric.name().toLowerCase()).append(" p50/p95: ")
+                            .append(histogram.getPercentile(0.5)).append('/').append(histogram.getPercentile(0.95))
+                            .append(' ').append(metric.unit);
+                }
+            }
+            return line.toString();
+        }
+
+        synchronized JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("requests", requests);
+            JSONObject outcomeJson = new JSONObject();
+            for (Map.Entry<RequestMetrics.Outcome, Long> outcome : outcomes.entrySet()) {
+                outcomeJson.put(outcome.getKey().name().toLowerCase(), outcome.getValue());
+            }
+            json.put("outcomes", outcomeJson);
+            json.put("retries", retries);
+            json.put("bytesTransferred", bytesTransferred);
+            json.put("bytesSaved", bytesSaved);
+            for (Metric metric : Metric.values()) {
+                JSONObject histogram = histograms.get(metric).toJson();
+                histogram.put("unit", metric.unit);
+                json.put(metric.name().toLowerCase(), histogram);
+            }
+            return json;
+        }
+    }
+
+    // Method to add a finished request, called by FileOperation
+    static void record(RequestMetrics request) {
+        total.add(request);
+        String host = request.getHost();
+        if (host != null) {
+            Stats hostStats;
+            synchronized (hosts) {
+                hostStats = hosts.computeIfAbsent(host, key -> new Stats());
+            }
+            hostStats.add(request);
+        }
+    }
+
+    // Method to get the statistics of all requests of this run
+    public static Stats getTotal() {
+        return total;
+    }
+
+    // Method to get the statistics of one host, null if no request went there
+    public static Stats getHost(String host) {
+        synchronized (hosts) {
+            return hosts.get(host);
+        }
+    }
+
+    // Method to get the hosts that answered requests in this run
+    public static List<String> getHosts() {
+        synchronized (hosts) {
+            return new ArrayList<>(hosts.keySet());
+        }
+    }
+
+    // Method to get a histogram of all requests (host null) or of one host
+    public static Histogram getHistogram(Metric metric, String host) {
+        Stats stats = host == null ? total : getHost(host);
+        return stats != null ? stats.getHistogram(metric) : new Histogram(metric.bounds);
+    }
+
+    // Method to get all statistics as JSON
+    public static JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("total", total.toJson());
+        JSONArray hostArray = new JSONArray();
+        for (String host : getHosts()) {
+            JSONObject hostJson = getHost(host).toJson();
+            hostJson.put("host", host);
+            hostArray.put(hostJson);
+        }
+        json.put("hosts", hostArray);
+        return json;
+    }
+
+    // Method to log the summary and write the JSON dump (downloadMetricsFile), called at the end of the run
+    public static void dump() {
+        if (total.getRequests() == 0) {
+            return;
+        }
+        logger.info("Download metrics: " + total.describe());
+        for (String host : getHosts()) {
+            logger.info("Download metrics for " + host + ": " + getHost(host).describe());
+        }
+
+        if (Config.downloadMetricsFile == null || Config.downloadMetricsFile.isEmpty()) {
+            return;
+        }
+        Path file = Config.logFolder.resolve(Config.downloadMetricsFile);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(toJson().toString(2));
+        } catch (IOException e) {
+            logger.warning("Could not write the download metrics: " + e.getMessage());
+        }
+    }
+
+    // Method to forget all recorded requests
+    public static void reset() {
+        synchronized (hosts) {
+            hosts.clear();
+        }
+        total = new Stats();
+    }
+}
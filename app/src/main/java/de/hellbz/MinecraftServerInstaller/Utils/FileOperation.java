@@ -1,37 +1,91 @@
 package de.hellbz.MinecraftServerInstaller.Utils;
 
+import de.hellbz.MinecraftServerInstaller.Data.Config;
 import de.hellbz.MinecraftServerInstaller.Utils.LoggerUtility;
+import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 public class FileOperation {
 
     private String source;
     private Map<String, String> headers = new HashMap<>();
     private String content;
-    private byte[] binaryContent;  // For binary files
+    private byte[] binaryContent;  // For binary files (in-memory mode)
+    private Path binaryFile;  // For binary files streamed to disk
+    private boolean binaryFileIsTemp = false;  // True while binaryFile still lives in the temp folder
+    private boolean streamToDisk = true;  // Stream binary downloads to a temp file instead of the heap
+    private String expectedHash;  // Hash of the artifact, enables the shared artifact store
+    private long expectedSize = -1;  // Known size of the artifact, small files skip the range probe
+    private String hashAlgorithm;  // "SHA-1", "SHA-256" or "SHA-512", computed inline while downloading
+    private MessageDigest digest;  // Digest updated in the read loop
+    private String computedHash;  // Hex digest of the downloaded file
+    private boolean binaryFileInStore = false;  // True if binaryFile is an object of the artifact store
+    private Path partFile;  // "<target>.part" file for resumable downloads
+    private String partValidator;  // ETag or Last-Modified of the interrupted download
+    private String cachePath;  // Cache file used by fetch() for conditional requests
+    private long cacheMaxAge;  // Freshness window if the server sends no Cache-Control max-age
+    private String responseETag;  // Validators and freshness of the last HTTP response
+    private String responseLastModified;
+    private long responseMaxAge = -1;
+    private byte[] responseBody;  // Received bytes of a document with an expected hash, verified and stored as they are
     private int responseCode;
+    private AtomicLong transferCounter;  // Shared byte counter of a batch, see BatchFetch
+    private String requestUrl;  // URL of the current attempt, source itself or one of its mirrors
+    private int firstByteTimeout = 0;  // Read timeout while another mirror is left to fail over to
+    private long timeToFirstByte;  // Nanoseconds until the response headers of the current attempt arrived
+    private MemoCache.Entry memo;  // In-memory copy of the fetched document, shares the parsed forms
+    private final List<ProgressListener> progressListeners = new ArrayList<>();
+    private ProgressTracker progress;  // Progress of the running download, null if nobody listens
+    private RequestMetrics metrics;  // Timings and byte counts of the current fetch, see DownloadMetrics
     private static final Logger logger = LoggerUtility.getLogger(FileOperation.class);
+    private static ExecutorService hedgeExecutor;  // Created on the first hedged request
 
     // Static variable to control logging
     public static boolean noLog = false;  // If true, logs will be suppressed
 
+    // Response code of a download that did not match its expected hash. Not an HTTP code, so it is never retried like a 5xx
+    public static final int HASH_MISMATCH = -2;
+
     // Constructor
     public FileOperation(String source) {
         this.source = source;
+        this.requestUrl = source;
     }
 
     // Method to add headers
@@ -52,11 +106,87 @@ public class FileOperation {
         return this;  // Ermöglicht method chaining
     }
 
+    // Methode, um Binär-Downloads im Speicher (binaryContent) statt in einer Temp-Datei zu halten
+    public FileOperation streamToDisk(boolean enabled) {
+        this.streamToDisk = enabled;
+        return this;  // Ermöglicht method chaining
+    }
+
+    // Method to set the expected SHA-1, the artifact is then taken from (and added to) the shared artifact store
+    public FileOperation expectHash(String sha1) {
+        return expectHash("SHA-1", sha1);
+    }
+
+    // Method to set the expected hash ("SHA-1", "SHA-256" or "SHA-512"), verified while the bytes are downloaded.
+    // fetch() keeps such documents in the artifact store as well and reads them from there on the next call.
+    public FileOperation expectHash(String algorithm, String hash) {
+        this.hashAlgorithm = hash != null ? algorithm : hashAlgorithm;
+        this.expectedHash = hash;
+        return this;
+    }
+
+    // Method to set the known size in bytes, files below two segments are fetched without a HEAD probe first
+    public FileOperation expectSize(long size) {
+        this.expectedSize = size;
+        return this;
+    }
+
+    // Method to compute a hash of the download without verifying it, see getHash()
+    public FileOperation computeHash(String algorithm) {
+        this.hashAlgorithm = algorithm;
+        return this;
+    }
+
+    // Method to count the transferred bytes into a shared counter (used for the aggregate progress of a batch)
+    FileOperation transferCounter(AtomicLong counter) {
+        this.transferCounter = counter;
+        return this;
+    }
+
+    // Method to subscribe to the progress of fetchBinary(), see ConsoleProgressRenderer, LogProgressRenderer and JsonProgressSink
+    public FileOperation progress(ProgressListener listener) {
+        progressListeners.add(listener);
+        return this;
+    }
+
+    // Method to download into "<target>.part", an interrupted download is continued by the next attempt
+    public FileOperation resumable(String targetPath) {
+        this.partFile = Paths.get(targetPath + ".part");
+        return this;
+    }
+
     // Method to fetch the file from a remote URL, local file, or resource folder
     public FileOperation fetch() {
         try {
             if (source.toLowerCase().startsWith("http://") || source.toLowerCase().startsWith("https://")) {
-                fetchFromUrl();
+                metrics = new RequestMetrics(source, false);
+                // Documents fetched earlier in this run are neither read from disk nor requested again.
+                // With an expected hash the memo is skipped: it was never checked against that hash, the store hit below is.
+                memo = expectedHash == null ? MemoCache.getFresh(source) : null;
+                if (memo != null) {
+                    if (!noLog) logger.fine("Using memoized content: " + source);
+                    content = memo.getContent();
+                    responseCode = 304;  // Set response code to indicate the content was loaded from cache
+                    metrics.outcome(RequestMetrics.Outcome.MEMORY);
+                    metrics.addBytesSaved(content.length());
+                    return this;
+                }
+                if (expectedHash != null && ArtifactStore.contains(expectedHash)) {
+                    // Documents with a known hash never change, the stored copy is used without any request
+                    if (!noLog) logger.fine("Using stored document: " + getBaseName(source) + " (" + expectedHash + ")");
+                    content = new String(Files.readAllBytes(ArtifactStore.resolve(expectedHash)), StandardCharsets.UTF_8);
+                    responseCode = 304;  // Set response code to indicate the content was loaded from cache
+                    metrics.outcome(RequestMetrics.Outcome.STORE);
+                    metrics.addBytesSaved(content.length());
+                } else if (cachePath != null) {
+                    fetchFromUrlCached();
+                } else {
+                    fetchFromMirrors(this::fetchFromUrl);
+                }
+                if (expectedHash != null && responseCode == 200) {
+                    storeContent();
+                }
+                memoize();
             } else if (Files.exists(Paths.get(source))) {
                 fetchFromLocalFile();
             } else {
@@ -65,181 +195,563 @@ public class FileOperation {
         } catch (IOException e) {
             logger.severe("Fetching file failed: " + e.getMessage());
             responseCode = 500;
+        } finally {
+            recordMetrics();
         }
         return this;
     }
 
+    // Method to fetch the binary file from a remote URL with a visual progress bar (▓ and ░)
+    public FileOperation fetchBinaryWithProgressBar() {
+        return progress(new ConsoleProgressRenderer()).fetchBinary();
+    }
+
     // Method to fetch the binary file from a remote URL
     public FileOperation fetchBinary() {
+        metrics = new RequestMetrics(source, true);
+        // Artifacts with a known hash come straight from the store, without any network traffic
+        if (expectedHash != null && ArtifactStore.contains(expectedHash)) {
+            setBinaryFile(ArtifactStore.resolve(expectedHash), false);
+            binaryFileInStore = true;
+            computedHash = expectedHash.toLowerCase();  // contains() checked the object against its hash
+            responseCode = 304;  // Set response code to indicate the file was loaded from cache
+            if (!noLog) logger.info("Using stored artifact: " + getBaseName(source) + " (" + expectedHash + ")");
+            metrics.outcome(RequestMetrics.Outcome.STORE);
+            metrics.addBytesSaved(binaryFile.toFile().length());
+            recordMetrics();
+            return this;
+        }
+
+        try {
+            fetchFromMirrors(this::fetchBinaryFromUrl);
+        } catch (IOException e) {
+            if (!noLog) logger.severe("Fetching file failed: " + e.getMessage());
+            responseCode = 500;
+        } finally {
+            recordMetrics();
+        }
+        return this;
+    }
+
+    // Method to get the timings and byte counts of the last fetch, null before the first remote fetch
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Helper method to hand the finished metrics of a remote fetch to the run statistics
+    private void recordMetrics() {
+        if (metrics != null && metrics.getDurationNanos() < 0) {
+            metrics.finish(responseCode);
+            DownloadMetrics.record(metrics);
+        }
+    }
+
+    // Shared download logic of fetchBinary() for one source URL
+    private void fetchBinaryFromUrl() {
+        // The artifact store needs the file on disk
+        boolean toDisk = streamToDisk || expectedHash != null;
+        digest = hashAlgorithm != null ? ArtifactStore.createDigest(hashAlgorithm) : null;
+        computedHash = null;
+
         HttpURLConnection connection = null;
         try {
-            URL url = new URL(source);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
+            URL url = new URL(requestUrl);
 
-            // Set headers
-            for (Map.Entry<String, String> header : headers.entrySet()) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
+            // Try parallel range segments first, falls back to a single stream if the server does not support them.
+            // A known size too small for two segments makes the probe (an extra round trip) pointless.
+            boolean tooSmall = expectedSize >= 0 && expectedSize < 2 * Config.segmentMinSize;
+            if (toDisk && Config.downloadSegments > 1 && !tooSmall && fetchSegmented(url)) {
+                return;
             }
 
-            connection.setConnectTimeout(5000); // 5 seconds timeout
-            connection.connect();
+            // Continue an interrupted download of the .part file if its validator is known
+            long resumeFrom = partFile != null ? getResumeOffset() : 0;
+
+            long requestStart = System.nanoTime();
+            connection = HttpConnectionPool.open(url, "GET", headers);
+            connection.setReadTimeout(firstByteTimeout);
+
+            // The server only sends the remaining bytes if the validator still matches, otherwise the full file
+            if (resumeFrom > 0) {
+                connection.setRequestProperty("Range", "bytes=" + resumeFrom + "-");
+                connection.setRequestProperty("If-Range", partValidator);
+            }
+
+            HttpConnectionPool.connect(connection, metrics);
 
             responseCode = connection.getResponseCode();
+            timeToFirstByte = System.nanoTime() - requestStart;
+            LatencyTracker.record(url.getHost(), timeToFirstByte);
+            if (responseCode == 416 && resumeFrom > 0) {
+                // The range is not satisfiable anymore, start over from zero
+                if (!noLog) logger.warning("Cannot resume " + getFileNameFromUrl(url) + ", restarting download.");
+                deletePartFiles();
+                HttpConnectionPool.release(connection);
+                connection = null;
+                fetchBinaryFromUrl();
+                return;
+            }
             if (responseCode >= 200 && responseCode < 300) {
-                try (InputStream in = connection.getInputStream();
-                     ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+                long offset = 0;
+                if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+                    offset = getRangeStart(connection);
+                    if (offset != resumeFrom) {
+                        throw new IOException("Server resumed at byte " + offset + " instead of " + resumeFrom + ".");
+                    }
+                    metrics.outcome(RequestMetrics.Outcome.RESUMED);
+                    metrics.addBytesSaved(offset);
+                } else if (resumeFrom > 0) {
+                    if (!noLog) logger.info("File changed on the server, restarting download from zero.");
+                }
+
+                long contentLength = connection.getContentLengthLong(); // Get the content length
+                if (contentLength != -1) {
+                    contentLength += offset;
+                }
+                String fileName = getFileNameFromUrl(url);
 
-                    byte[] tempBuffer = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = in.read(tempBuffer)) != -1) {
-                        buffer.write(tempBuffer, 0, bytesRead);
+                if (offset > 0 && !noLog) logger.info("Resuming download at " + ProgressEvent.formatSize(offset));
+                startProgress(fileName, offset, contentLength);
+
+                try (InputStream in = connection.getInputStream()) {
+                    if (partFile != null) {
+                        streamToPartFile(in, offset, contentLength, getValidator(connection));
+                    } else if (toDisk) {
+                        // Stream the chunks straight into a temp file, heap usage stays flat
+                        Path tempFile = Files.createTempFile(Config.tempFolder, "download-", ".tmp");
+                        tempFile.toFile().deleteOnExit();
+                        try (OutputStream out = Files.newOutputStream(tempFile)) {
+                            copyStream(in, out, 0, contentLength);
+                        } catch (IOException e) {
+                            Files.deleteIfExists(tempFile);
+                            throw e;
+                        }
+                        setBinaryFile(tempFile, true);
+                    } else {
+                        try (ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+                            copyStream(in, buffer, 0, contentLength);
+                            binaryContent = buffer.toByteArray();  // Store binary data
+                        }
                     }
-                    binaryContent = buffer.toByteArray();  // Store binary data
                 }
-                if (!noLog) logger.info("Successfully fetched URL: " + source);
+                if (!verifyAndStore()) {
+                    return;
+                }
+                if (!noLog) logger.info("Successfully fetched URL: " + requestUrl);
             } else {
-                if (!noLog) logger.severe("Failed to fetch URL: " + source + " - Server returned an error.");
+                if (!noLog) logger.severe("Failed to fetch URL: " + requestUrl + " - Server returned an error.");
             }
         } catch (IOException e) {
             if (!noLog) logger.severe("Fetching file failed: " + e.getMessage());
             responseCode = 500;
         } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+            HttpConnectionPool.release(connection);
         }
-        return this;
     }
 
-    private String initialTimestamp;
+    // A single request against one source URL, see fetchFromMirrors()
+    private interface Attempt {
+        void run() throws IOException;
+    }
 
-    // Method to fetch the binary file from a remote URL with a visual progress bar (▓ and ░)
-    public FileOperation fetchBinaryWithProgressBar() {
-        HttpURLConnection connection = null;
-        try {
-            URL url = new URL(source);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
+    // Helper method to run a request against the best source of the host, fail over to the next one on errors
+    // and start over with exponential backoff while the failure is worth a retry
+    private void fetchFromMirrors(Attempt attempt) throws IOException {
+        boolean mismatchRetried = false;
+        for (int retry = 0; ; retry++) {
+            List<String> candidates = MirrorRegistry.candidates(source);
+            IOException failure = null;
+            for (int i = 0; i < candidates.size(); i++) {
+                requestUrl = candidates.get(i);
+                boolean hasFallback = i < candidates.size() - 1;
+                // A mirror that does not answer in time is skipped, the last source gets the full read timeout
+                firstByteTimeout = hasFallback ? Math.min(Config.mirrorFirstByteTimeout, Config.readTimeout) : Config.readTimeout;
+                failure = null;
+                metrics.attempt(requestUrl);
+                try {
+                    attempt.run();
+                    if ((responseCode >= 200 && responseCode < 300) || responseCode == 304) {
+                        metrics.timeToFirstByte(timeToFirstByte);
+                        MirrorRegistry.reportSuccess(requestUrl, timeToFirstByte);
+                        return;
+                    }
+                    if (responseCode == HASH_MISMATCH) {
+                        // The source answered, so it is not ranked down. It would send the same bytes again,
+                        // only another source gets one more try.
+                        if (mismatchRetried || !hasFallback) {
+                            return;
+                        }
+                        mismatchRetried = true;
+                        if (!noLog) logger.info("Trying next source: " + candidates.get(i + 1));
+                        continue;
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    if (!noLog) logger.warning("Request to " + requestUrl + " failed: " + e.getMessage());
+                }
+                MirrorRegistry.reportFailure(requestUrl);
+                if (hasFallback && !noLog) logger.info("Trying next source: " + candidates.get(i + 1));
+            }
 
-            // Set headers
-            for (Map.Entry<String, String> header : headers.entrySet()) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
+            boolean retryable = failure != null || RetryPolicy.isRetryable(responseCode);
+            if (!retryable || retry >= Config.httpRetries) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return;
             }
+            long delay = RetryPolicy.backoffMillis(retry);
+            if (!noLog) logger.warning("Retrying " + source + " in " + delay + " ms (" + (retry + 1) + "/" + Config.httpRetries + ")");
+            RetryPolicy.sleep(delay);
+        }
+    }
 
-            connection.setConnectTimeout(5000); // 5 seconds timeout
-            connection.connect();
+    // Helper method to copy the download stream chunk by chunk, the progress listeners are only called by the tracker's interval
+    private void copyStream(InputStream in, OutputStream out, long offset, long contentLength) throws IOException {
+        byte[] tempBuffer = new byte[65536];
+        int bytesRead;
+        long totalBytesRead = offset;
+        String host = getHost(requestUrl);
 
-            responseCode = connection.getResponseCode();
-            if (responseCode >= 200 && responseCode < 300) {
-                long contentLength = connection.getContentLengthLong(); // Get the content length
-                if (contentLength == -1) {
-                    if (!noLog) logger.severe("Could not determine file size.");
-                    return this;
-                } else {
-                    if (!noLog) logger.info("File size: " + formatSize(contentLength));
+        try {
+            while ((bytesRead = in.read(tempBuffer)) != -1) {
+                BandwidthLimiter.acquire(host, bytesRead);
+                out.write(tempBuffer, 0, bytesRead);
+                if (digest != null) {
+                    digest.update(tempBuffer, 0, bytesRead);  // Hash while the bytes pass through, no second read
                 }
+                totalBytesRead += bytesRead;
+                metrics.addBytesTransferred(bytesRead);
+                if (transferCounter != null) {
+                    transferCounter.addAndGet(bytesRead);
+                }
+                if (progress != null) {
+                    progress.update(totalBytesRead);
+                }
+            }
 
-                // Generate the timestamp once at the start
-                initialTimestamp = getFormattedTimestamp();
+            // A dropped connection may end the stream early without an error
+            if (contentLength != -1 && totalBytesRead != contentLength) {
+                throw new IOException("Download incomplete: received " + totalBytesRead + " of " + contentLength + " bytes.");
+            }
+        } catch (IOException e) {
+            if (progress != null) {
+                progress.fail(totalBytesRead);
+            }
+            throw e;
+        }
+        if (digest != null) {
+            computedHash = ArtifactStore.toHex(digest.digest());
+        }
 
-                // Get the file name from the URL
-                String fileName = getFileNameFromUrl(url);
+        if (progress != null) {
+            progress.finish(totalBytesRead);
+        }
+    }
+
+    // Helper method to announce a download to the progress listeners
+    private void startProgress(String fileName, long bytesDone, long bytesTotal) {
+        progress = ProgressTracker.create(source, fileName, progressListeners);
+        if (progress == null) {
+            return;
+        }
+        if (!noLog) logger.info("File size: " + (bytesTotal >= 0 ? ProgressEvent.formatSize(bytesTotal) : "unknown"));
+        if (!noLog) logger.info("Downloading file: " + fileName);
+        progress.start(bytesDone, bytesTotal);
+    }
 
-                if (!noLog) logger.info("Downloading file: " + fileName );
+    // Helper method to verify the downloaded file against the expected hash and move it into the artifact store
+    private boolean verifyAndStore() throws IOException {
+        if (hashAlgorithm == null) {
+            return true;
+        }
+        if (computedHash == null && binaryFile != null) {
+            // Segments arrive out of order, so they are hashed once the file is complete
+            computedHash = ArtifactStore.hash(binaryFile, hashAlgorithm);
+        }
+        if (expectedHash == null || binaryFile == null) {
+            return true;
+        }
+        if (!computedHash.equalsIgnoreCase(expectedHash)) {
+            if (!noLog) logger.severe("Hash mismatch for " + requestUrl + ": expected " + expectedHash + ", got " + computedHash);
+            Files.deleteIfExists(binaryFile);
+            binaryFile = null;
+            responseCode = HASH_MISMATCH;
+            metrics.outcome(RequestMetrics.Outcome.MISMATCH);
+            return false;
+        }
+        setBinaryFile(ArtifactStore.put(binaryFile, expectedHash), false);
+        binaryFileInStore = true;
+        return true;
+    }
 
-                try (InputStream in = connection.getInputStream();
-                     ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+    // Helper method to stream into the .part file, the sidecar keeps the validator and received bytes for a later resume
+    private void streamToPartFile(InputStream in, long offset, long contentLength, String validator) throws IOException {
+        Files.createDirectories(partFile.toAbsolutePath().getParent());  // The target folder may not exist yet
+        savePartInfo(validator, offset);
+        if (digest != null && offset > 0) {
+            // The bytes of the earlier attempt are part of the hash as well
+            try (InputStream partIn = Files.newInputStream(partFile)) {
+                byte[] buffer = new byte[65536];
+                long remaining = offset;
+                int read;
+                while (remaining > 0 && (read = partIn.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    digest.update(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+        try (OutputStream out = offset > 0
+                ? Files.newOutputStream(partFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                : Files.newOutputStream(partFile)) {
+            copyStream(in, out, offset, contentLength);
+        } catch (IOException e) {
+            // Keep the .part file, the next attempt continues where this one stopped
+            savePartInfo(validator, Files.size(partFile));
+            throw e;
+        }
+        Files.deleteIfExists(getPartInfoFile());
+        setBinaryFile(partFile, true);
+    }
+
+    // Helper method to determine where an interrupted download can be continued, 0 means start from zero
+    private long getResumeOffset() throws IOException {
+        Properties partInfo = loadPartInfo();
+        if (partInfo == null) {
+            return 0;
+        }
+        partValidator = partInfo.getProperty("validator", "");
+        if (partValidator.isEmpty()) {
+            return 0;
+        }
+        String missing = partInfo.getProperty("missing");
+        if (missing == null) {
+            return Files.size(partFile);
+        }
 
-                    byte[] tempBuffer = new byte[4096];
-                    int bytesRead;
-                    long totalBytesRead = 0;
-                    int lastProgress = 0;
+        // Left by a segmented download: one stream can only continue up to the first gap, the bytes after it are fetched again
+        long prefix;
+        try {
+            List<long[]> ranges = SegmentedDownload.parseRanges(missing);
+            prefix = ranges.isEmpty() ? Files.size(partFile) : ranges.get(0)[0];
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE)) {
+            channel.truncate(prefix);
+        }
+        return prefix;
+    }
 
-                    // Initial progress bar setup
-                    printProgressBar(0, contentLength, 0, fileName);
+    // Helper method to get the ranges an interrupted download of the same file version left open, null to start over
+    private List<long[]> getMissingRanges(SegmentedDownload.Probe probe) throws IOException {
+        Properties partInfo = loadPartInfo();
+        if (partInfo == null || !probe.validator.equals(partInfo.getProperty("validator"))) {
+            return null;
+        }
+        String missing = partInfo.getProperty("missing");
+        if (missing != null) {
+            if (!String.valueOf(probe.contentLength).equals(partInfo.getProperty("length"))) {
+                return null;
+            }
+            try {
+                return SegmentedDownload.parseRanges(missing);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        // Left by a single stream: everything after the received bytes is missing
+        long received = Files.size(partFile);
+        if (received > probe.contentLength) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        if (received < probe.contentLength) {
+            ranges.add(new long[]{received, probe.contentLength - 1});
+        }
+        return ranges;
+    }
 
-                    while ((bytesRead = in.read(tempBuffer)) != -1) {
-                        buffer.write(tempBuffer, 0, bytesRead);
-                        totalBytesRead += bytesRead;
+    // Helper method to read the sidecar of the .part file, null if there is nothing to continue for this URL
+    private Properties loadPartInfo() throws IOException {
+        Path partInfoFile = getPartInfoFile();
+        if (!Files.exists(partFile) || !Files.exists(partInfoFile)) {
+            return null;
+        }
 
-                        // Calculate progress in percentage
-                        int progress = (int) ((totalBytesRead * 100) / contentLength);
-                        if (progress / 10 > lastProgress / 10) {
-                            lastProgress = progress;
-                            // Update progress bar
-                            printProgressBar(totalBytesRead, contentLength, progress, fileName);
-                        }
-                    }
+        Properties partInfo = new Properties();
+        try (InputStream in = Files.newInputStream(partInfoFile)) {
+            partInfo.load(in);
+        }
+        return source.equals(partInfo.getProperty("url")) ? partInfo : null;
+    }
 
-                    binaryContent = buffer.toByteArray();  // Store binary data
+    // Helper method to write the sidecar of the .part file
+    private void savePartInfo(String validator, long bytesReceived) throws IOException {
+        Properties partInfo = new Properties();
+        partInfo.setProperty("url", source);
+        partInfo.setProperty("validator", validator != null ? validator : "");
+        partInfo.setProperty("bytes", String.valueOf(bytesReceived));
+        storePartInfo(partInfo);
+    }
 
-                    // Print final progress bar at 100%
-                    printProgressBar(contentLength, contentLength, 100, fileName);
-                    System.out.println();  // Move to a new line after progress bar completion
+    // Helper method to write the sidecar of a segmented .part file, the segments can complete in any order
+    private void savePartInfo(String validator, long contentLength, List<long[]> missing) throws IOException {
+        Properties partInfo = new Properties();
+        partInfo.setProperty("url", source);
+        partInfo.setProperty("validator", validator);
+        partInfo.setProperty("length", String.valueOf(contentLength));
+        partInfo.setProperty("missing", SegmentedDownload.formatRanges(missing));
+        storePartInfo(partInfo);
+    }
 
-                }
-                if (!noLog) logger.info("Successfully fetched URL: " + source);
-            } else {
-                if (!noLog) logger.severe("Failed to fetch URL: " + source + " - Server returned an error.");
-            }
-        } catch (IOException e) {
-            if (!noLog) logger.severe("Fetching file failed: " + e.getMessage());
-            responseCode = 500;
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+    // Helper method to store the sidecar next to the .part file
+    private void storePartInfo(Properties partInfo) throws IOException {
+        try (OutputStream out = Files.newOutputStream(getPartInfoFile())) {
+            partInfo.store(out, "Resumable download");
         }
-        return this;
     }
 
-    // Helper method to print the progress bar with ▓ and ░ characters and the prefixed timestamp
-    private void printProgressBar(long bytesRead, long totalBytes, int progress, String fileName) {
-        int barLength = 30;  // Length of the progress bar
-        int filledLength = (int) (barLength * progress / 100);
+    // Helper method to remove the .part file and its sidecar
+    private void deletePartFiles() throws IOException {
+        Files.deleteIfExists(partFile);
+        Files.deleteIfExists(getPartInfoFile());
+    }
 
-        StringBuilder bar = new StringBuilder();
-        bar.append("[");
+    // Helper method to get the sidecar file of the .part file
+    private Path getPartInfoFile() {
+        return partFile.resolveSibling(partFile.getFileName() + ".properties");
+    }
 
-        // Create the filled portion of the bar using ▓
-        for (int i = 0; i < filledLength; i++) {
-            bar.append("▓");
+    // Helper method to get a validator for If-Range, weak ETags are not allowed there
+    private static String getValidator(HttpURLConnection connection) {
+        String etag = connection.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
         }
+        return connection.getHeaderField("Last-Modified");
+    }
 
-        // Create the unfilled portion of the bar using ░
-        for (int i = filledLength; i < barLength; i++) {
-            bar.append("░");
+    // Helper method to read the first byte position of a "Content-Range: bytes N-M/T" header
+    private static long getRangeStart(HttpURLConnection connection) throws IOException {
+        String contentRange = connection.getHeaderField("Content-Range");
+        if (contentRange == null || !contentRange.startsWith("bytes ") || contentRange.indexOf('-') < 0) {
+            throw new IOException("Invalid Content-Range header: " + contentRange);
+        }
+        try {
+            return Long.parseLong(contentRange.substring(6, contentRange.indexOf('-')).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Content-Range header: " + contentRange);
         }
+    }
 
-        bar.append("] ");
+    // Helper method to download in parallel HTTP Range segments, returns false to fall back to a single stream
+    private boolean fetchSegmented(URL url) throws IOException {
+        SegmentedDownload.Probe probe;
+        try {
+            long requestStart = System.nanoTime();
+            probe = SegmentedDownload.probe(url, headers);
+            timeToFirstByte = System.nanoTime() - requestStart;
+        } catch (IOException e) {
+            if (!noLog) logger.fine("Range probe failed, using a single stream: " + e.getMessage());
+            return false;
+        }
+        if (!probe.isSegmentable(Config.downloadSegments, Config.segmentMinSize)) {
+            return false;
+        }
 
-        // Print progress percentage and size information with the prefixed timestamp
-        System.out.printf("\r%s %sDOWNLOAD" +
-                        ":%s %s %d%% (%s / %s) File: %s",
-                initialTimestamp,
-                ConsoleColors.PURPLE_BRIGHT, ConsoleColors.RESET,
-                bar.toString(), progress, formatSize(bytesRead), formatSize(totalBytes), fileName);
+        String fileName = getFileNameFromUrl(url);
+        Path target = null;
+        SegmentedDownload download = null;
+        long bytesDone = 0;
+        try {
+            // Resumable downloads write into the .part file and only fetch what an interrupted attempt left open
+            List<long[]> missing = partFile != null ? getMissingRanges(probe) : null;
+            if (missing == null) {
+                missing = Collections.singletonList(new long[]{0, probe.contentLength - 1});
+            }
+            bytesDone = probe.contentLength - SegmentedDownload.size(missing);
+            int segments = (int) Math.max(1, Math.min(Config.downloadSegments, (probe.contentLength - bytesDone) / Config.segmentMinSize));
+            if (partFile != null) {
+                target = partFile;
+                Files.createDirectories(partFile.toAbsolutePath().getParent());  // The target folder may not exist yet
+                savePartInfo(probe.validator, probe.contentLength, missing);
+            } else {
+                target = Files.createTempFile(Config.tempFolder, "download-", ".tmp");
+                target.toFile().deleteOnExit();
+            }
+            if (bytesDone > 0) {
+                if (!noLog) logger.info("Resuming download at " + ProgressEvent.formatSize(bytesDone));
+                metrics.outcome(RequestMetrics.Outcome.RESUMED);
+                metrics.addBytesSaved(bytesDone);
+            }
 
-        System.out.flush();  // Ensure the progress bar is displayed in real-time
-    }
+            startProgress(fileName, bytesDone, probe.contentLength);
+
+            download = new SegmentedDownload(probe.url, headers, target, probe.contentLength, probe.validator,
+                    SegmentedDownload.split(missing, segments)).start();
+            long lastBytesRead = 0;
+            boolean completed = false;
+            while (!completed) {
+                completed = download.awaitCompletion(250);
+                long bytesRead = download.getBytesRead();
+                metrics.addBytesTransferred(bytesRead - lastBytesRead);
+                if (transferCounter != null) {
+                    transferCounter.addAndGet(bytesRead - lastBytesRead);
+                }
+                lastBytesRead = bytesRead;
+                if (progress != null) {
+                    progress.update(bytesDone + bytesRead);
+                }
+                if (partFile != null && !completed) {
+                    savePartInfo(probe.validator, probe.contentLength, download.getMissingRanges());
+                }
+            }
+
+            if (progress != null) {
+                progress.finish(probe.contentLength);
+            }
 
-    // Helper method to format file sizes in a human-readable format (MB, GB, etc.)
-    private String formatSize(long sizeInBytes) {
-        double size = sizeInBytes;
-        String[] units = {"B", "KB", "MB", "GB", "TB"};
-        int unitIndex = 0;
-        while (size >= 1024 && unitIndex < units.length - 1) {
-            size /= 1024;
-            unitIndex++;
+            if (partFile != null) {
+                Files.deleteIfExists(getPartInfoFile());
+            }
+            setBinaryFile(target, true);
+            responseCode = 200;
+            if (verifyAndStore()) {
+                if (!noLog) logger.info("Successfully fetched URL: " + requestUrl + " (" + segments + " segments)");
+            }
+            return true;
+        } catch (IOException e) {
+            if (download != null) {
+                download.cancel();
+            }
+            if (progress != null) {
+                progress.fail(bytesDone + (download != null ? download.getBytesRead() : 0));
+            }
+            if (partFile != null && download != null && download.getBytesRead() > 0) {
+                // Keep the .part file, the sidecar tells the retry (or the next run) which ranges are still missing.
+                // A single stream could only continue up to the first gap and would drop the other segments.
+                savePartInfo(probe.validator, probe.contentLength, download.getMissingRanges());
+                throw e;
+            }
+            if (!noLog) logger.warning("Segmented download failed, using a single stream: " + e.getMessage());
+            try {
+                if (partFile == null && target != null) {
+                    Files.deleteIfExists(target);
+                }
+            } catch (IOException ignored) {
+                // The temp file is removed on exit anyway
+            }
+            return false;
         }
-        return String.format("%.2f %s", size, units[unitIndex]);
     }
 
-    // Method to get the formatted timestamp
-    private String getFormattedTimestamp() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return "[" + LocalDateTime.now().format(formatter) + "]";
+    // Helper method to remember where the downloaded binary data lives on disk
+    private void setBinaryFile(Path file, boolean isTemp) {
+        this.binaryFile = file;
+        this.binaryFileIsTemp = isTemp;
+        this.binaryFileInStore = false;
+        this.binaryContent = null;
     }
 
     // Helper method to extract the file name from the URL object
@@ -248,37 +760,265 @@ public class FileOperation {
         return filePath.substring(filePath.lastIndexOf('/') + 1);  // Extract the file name
     }
 
-    // Method to fetch from a URL
+    // Method to fetch from a URL, small documents are hedged with a second request if the first one is late
     private void fetchFromUrl() throws IOException {
+        TextResponse response = Config.hedgeRequests ? requestTextHedged() : requestText(requestUrl, firstByteTimeout, null);
+
+        responseCode = response.code;
+        timeToFirstByte = response.timeToFirstByte;
+        responseETag = response.etag;
+        responseLastModified = response.lastModified;
+        responseMaxAge = response.maxAge;
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return;  // No body, the caller serves the cached copy
+        }
+        content = response.content;
+        responseBody = response.body;
+
+        if (responseCode >= 200 && responseCode < 300) {
+            if (!noLog) logger.info("Successfully fetched URL: " + requestUrl);
+        } else {
+            if (!noLog) logger.severe("Failed to fetch URL: " + requestUrl + " - Server returned HTTP " + responseCode + ".");
+        }
+    }
+
+    // Result of one text request, requests may run on other threads and must not touch the fields of the FileOperation
+    private static class TextResponse {
+        int code;
+        long timeToFirstByte;
+        String etag;
+        String lastModified;
+        long maxAge;
+        String content;  // null for 304 and errors
+        byte[] body;  // The bytes behind content, only kept if a hash is expected
+    }
+
+    // Helper method to send one GET request for a text document, the connection is published to allow cancelling
+    private TextResponse requestText(String requestUrl, int readTimeout, AtomicReference<HttpURLConnection> handle) throws IOException {
         HttpURLConnection connection = null;
         try {
-            URL url = new URL(source);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
+            URL url = new URL(requestUrl);
+            long requestStart = System.nanoTime();
+            connection = HttpConnectionPool.open(url, "GET", headers);
+            connection.setReadTimeout(readTimeout);
+            if (!headers.containsKey("Accept-Encoding")) {
+                connection.setRequestProperty("Accept-Encoding", "gzip, deflate");  // Text compresses well
+            }
+            if (handle != null) {
+                handle.set(connection);
+            }
+            HttpConnectionPool.connect(connection, metrics);
+
+            TextResponse response = new TextResponse();
+            response.code = connection.getResponseCode();
+            response.timeToFirstByte = System.nanoTime() - requestStart;
+            LatencyTracker.record(url.getHost(), response.timeToFirstByte);
+            response.etag = connection.getHeaderField("ETag");
+            response.lastModified = connection.getHeaderField("Last-Modified");
+            response.maxAge = parseMaxAge(connection.getHeaderField("Cache-Control"));
+            if (response.code >= 200 && response.code < 300) {
+                InputStream in = decodeContent(metrics.count(connection.getInputStream()), connection.getContentEncoding());
+                if (expectedHash != null) {
+                    // The hash is over the bytes as served, decoding and re-encoding could change them (BOM, charset)
+                    response.body = readBytesFromStream(in, connection.getContentLengthLong());
+                    response.content = new String(response.body, StandardCharsets.UTF_8);
+                } else {
+                    response.content = readContentFromStream(in, connection.getContentLengthLong());
+                }
+                if (connection.getContentEncoding() != null && connection.getContentLengthLong() >= 0) {
+                    metrics.addBytesSaved(response.content.length() - connection.getContentLengthLong());  // Compression
+                }
+            }
+            return response;
+        } finally {
+            if (handle != null) {
+                handle.set(null);  // Finished: from now on the connection belongs to the pool, not to the hedging
+            }
+            HttpConnectionPool.release(connection);
+        }
+    }
 
-            // Set headers
-            for (Map.Entry<String, String> header : headers.entrySet()) {
-                connection.setRequestProperty(header.getKey(), header.getValue());
+    // Helper method to send a second request if the first one has not answered within the p95 latency of the host
+    private TextResponse requestTextHedged() throws IOException {
+        final String url = requestUrl;
+        final int readTimeout = firstByteTimeout;
+        long p95 = LatencyTracker.percentile(getHost(url), 0.95);
+        long hedgeDelay = p95 > 0 ? Math.max(Config.hedgeMinDelay, TimeUnit.NANOSECONDS.toMillis(p95)) : Config.hedgeDelay;
+
+        List<AtomicReference<HttpURLConnection>> handles = new ArrayList<>();
+        CompletableFuture<TextResponse> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger();  // Fails only when no attempt is left
+        int started = 0;
+        try {
+            while (started < 2) {
+                AtomicReference<HttpURLConnection> handle = new AtomicReference<>();
+                handles.add(handle);
+                pending.incrementAndGet();
+                started++;
+                CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return requestText(url, readTimeout, handle);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, getHedgeExecutor()).whenComplete((response, error) -> {
+                    if (error == null) {
+                        winner.complete(response);
+                    } else if (pending.decrementAndGet() == 0) {
+                        winner.completeExceptionally(error);
+                    }
+                });
+                if (started == 1) {
+                    try {
+                        return winner.get(hedgeDelay, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        if (!noLog) logger.fine("No answer from " + url + " after " + hedgeDelay + " ms, sending a hedged request.");
+                    }
+                }
             }
+            return winner.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            // Cancel the attempts that are still running, finished ones (the winner) were released for reuse by requestText()
+            for (AtomicReference<HttpURLConnection> handle : handles) {
+                HttpURLConnection connection = handle.getAndSet(null);
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+    }
 
-            connection.setConnectTimeout(5000); // 5 seconds timeout
-            connection.connect();
+    // Helper method to create the threads for hedged requests
+    private static synchronized ExecutorService getHedgeExecutor() {
+        if (hedgeExecutor == null) {
+            hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "msi-hedged-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return hedgeExecutor;
+    }
 
-            responseCode = connection.getResponseCode();
-            InputStream in = connection.getInputStream();
+    // Method to fetch from a URL through the cache file, revalidating it with the origin once it is stale
+    private void fetchFromUrlCached() throws IOException {
+        Path cacheFile = Paths.get(cachePath);
+        TempCache.Entry cacheEntry = TempCache.lookup(cacheFile);
 
-            content = readContentFromStream(in);
+        if (cacheEntry != null) {
+            if (cacheEntry.isFresh()) {
+                if (!noLog) logger.info("Using cached file: " + cachePath);
+                content = new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8);
+                responseCode = 304;  // Set response code to indicate the file was loaded from cache
+                responseETag = cacheEntry.getEtag();
+                responseLastModified = cacheEntry.getLastModified();
+                responseMaxAge = cacheEntry.getStoredAt() + cacheEntry.getMaxAge() - System.currentTimeMillis();  // Remaining freshness
+                TempCache.recordHit(cacheFile);
+                metrics.outcome(RequestMetrics.Outcome.CACHE);
+                metrics.addBytesSaved(content.length());
+                return;
+            }
 
-            if (responseCode >= 200 && responseCode < 300) {
-                if (!noLog) logger.info("Successfully fetched URL: " + source);
-            } else {
-                if (!noLog) logger.severe("Failed to fetch URL: " + source + " - Server returned an error.");
+            // Stale: ask the origin whether our copy is still valid
+            if (cacheEntry.getEtag() != null) {
+                headers.put("If-None-Match", cacheEntry.getEtag());
+            }
+            if (cacheEntry.getLastModified() != null) {
+                headers.put("If-Modified-Since", cacheEntry.getLastModified());
             }
+        }
+
+        try {
+            fetchFromMirrors(this::fetchFromUrl);
         } finally {
-            if (connection != null) {
-                connection.disconnect();
+            headers.remove("If-None-Match");
+            headers.remove("If-Modified-Since");
+        }
+
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cacheEntry != null) {
+            if (!noLog) logger.info("Cached file revalidated: " + cachePath);
+            content = new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8);
+            responseETag = cacheEntry.getEtag();
+            responseLastModified = cacheEntry.getLastModified();
+            storeCacheEntry();
+            TempCache.recordHit(cacheFile);
+            metrics.outcome(RequestMetrics.Outcome.REVALIDATED);
+            metrics.addBytesSaved(content.length());
+        } else if (responseCode == 200) {
+            saveTo(cachePath);
+            storeCacheEntry();
+            TempCache.recordMiss();
+        }
+    }
+
+    // Helper method to verify a fetched document against the expected hash and keep it in the artifact store
+    private void storeContent() throws IOException {
+        byte[] bytes = responseBody != null ? responseBody : content.getBytes(StandardCharsets.UTF_8);
+        responseBody = null;  // Only needed until the document is stored
+        computedHash = ArtifactStore.toHex(ArtifactStore.createDigest(hashAlgorithm).digest(bytes));
+        if (!computedHash.equalsIgnoreCase(expectedHash)) {
+            if (!noLog) logger.severe("Hash mismatch for " + requestUrl + ": expected " + expectedHash + ", got " + computedHash);
+            content = null;
+            responseCode = HASH_MISMATCH;
+            metrics.outcome(RequestMetrics.Outcome.MISMATCH);
+            return;
+        }
+        Path tempFile = Files.createTempFile(Config.tempFolder, "document-", ".tmp");
+        try {
+            Files.write(tempFile, bytes);
+            ArtifactStore.put(tempFile, expectedHash);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Helper method to record the cache file with its validators and freshness window in the temp cache index
+    private void storeCacheEntry() {
+        // The server decides how long the copy stays fresh, the caller's value is only a fallback
+        long maxAge = responseMaxAge >= 0 ? responseMaxAge : cacheMaxAge;
+        TempCache.store(Paths.get(cachePath), source, maxAge, responseETag, responseLastModified);
+    }
+
+    // Helper method to keep a successfully fetched document in the memory cache
+    private void memoize() {
+        if (content == null || (responseCode != 200 && responseCode != 304)) {
+            return;
+        }
+        // Without validators the content itself tells whether the parsed forms can be shared
+        String validator = responseETag != null ? responseETag
+                : responseLastModified != null ? responseLastModified
+                : "#" + content.length() + ":" + content.hashCode();
+        long freshFor = Math.max(Math.max(responseMaxAge, cacheMaxAge), Config.memoCacheTtl * 1000L);
+        memo = MemoCache.put(source, validator, content, System.currentTimeMillis() + freshFor);
+        // Same validator, same document: use the memoized string, so getParsed() shares its parsed forms
+        content = memo.getContent();
+    }
+
+    // Helper method to read max-age from a Cache-Control header in milliseconds, -1 if not present
+    private static long parseMaxAge(String cacheControl) {
+        if (cacheControl == null) {
+            return -1;
+        }
+        for (String directive : cacheControl.toLowerCase().split(",")) {
+            directive = directive.trim();
+            if (directive.equals("no-cache") || directive.equals("no-store")) {
+                return 0;
+            }
+            if (directive.startsWith("max-age=")) {
+                try {
+                    return Long.parseLong(directive.substring(8).trim()) * 1000;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
             }
         }
+        return -1;
     }
 
     // Method to fetch from a local file
@@ -294,7 +1034,7 @@ public class FileOperation {
             if (in == null) {
                 throw new FileNotFoundException("Resource not found: " + source);
             }
-            content = readContentFromStream(in);
+            content = readContentFromStream(in, -1);
             responseCode = 200;
             if (!noLog) logger.info("Successfully read resource: " + source);
         }
@@ -314,75 +1054,242 @@ public class FileOperation {
 
     // Method to save the content (either binary or text) to a file
     public FileOperation saveTo(String destinationPath) {
-        if (binaryContent != null) {
-            // Save binary content
-            try (OutputStream out = Files.newOutputStream(Paths.get(destinationPath), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                out.write(binaryContent);
-                if (!noLog) logger.info("Binary file saved to: " + destinationPath);
-            } catch (IOException e) {
-                if (!noLog) logger.severe("Failed to save binary file: " + e.getMessage());
+        try {
+            save(Paths.get(destinationPath));
+        } catch (IOException e) {
+            if (!noLog) logger.severe("Failed to save " + (content != null ? "text" : "binary") + " file: " + e.getMessage());
+        }
+        return this;
+    }
+
+    // Helper method for saveTo() that reports failures to the caller, used by the batch downloads
+    void save(Path destination) throws IOException {
+        // Every branch writes a sibling temp file, fsyncs it and renames it over the destination,
+        // so a crash never leaves a truncated file behind and a running server keeps its old jar open
+        if (binaryFile != null) {
+            // Save streamed binary content
+            if (binaryFileInStore) {
+                ArtifactStore.linkTo(expectedHash, destination);
+            } else if (binaryFileIsTemp) {
+                moveIntoPlace(binaryFile, destination);
+                setBinaryFile(destination, false);
+            } else if (!Files.exists(destination) || !Files.isSameFile(binaryFile, destination)) {
+                copyIntoPlace(binaryFile, destination);
             }
+            if (!noLog) logger.info("Binary file saved to: " + destination);
+        } else if (binaryContent != null) {
+            // Save binary content
+            writeIntoPlace(binaryContent, destination);
+            if (!noLog) logger.info("Binary file saved to: " + destination);
         } else if (content != null) {
             // Save text content
-            try {
-                Files.write(Paths.get(destinationPath), content.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                if (!noLog) logger.info("Text file saved to: " + destinationPath);
-            } catch (IOException e) {
-                if (!noLog) logger.severe("Failed to save text file: " + e.getMessage());
-            }
+            writeIntoPlace(content.getBytes(StandardCharsets.UTF_8), destination);
+            if (!noLog) logger.info("Text file saved to: " + destination);
         } else {
-            if (!noLog) logger.severe("No content available to save.");
+            throw new IOException("No content available to save.");
         }
-        return this;
     }
 
-    // Method to cache the content
-    public FileOperation cache(long maxAgeMillis, String cachePath) {
-        File cacheFile = new File(cachePath);
-        if (cacheFile.exists() && (System.currentTimeMillis() - cacheFile.lastModified() < maxAgeMillis)) {
-            if (!noLog) logger.info("Using cached file: " + cachePath);
-            try {
-                content = new String(Files.readAllBytes(Paths.get(cachePath)), StandardCharsets.UTF_8);
-                responseCode = 304;  // Set response code to indicate the file was loaded from cache
-            } catch (IOException e) {
-                if (!noLog) logger.severe("Failed to read cached file: " + e.getMessage());
-                responseCode = 500;
+    // Helper method to move a finished download to its destination, a rename if both are on the same file system
+    private static void moveIntoPlace(Path source, Path destination) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            replaceAtomically(source, destination);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Temp folder on another file system: copy next to the destination first
+            copyIntoPlace(source, destination);
+            Files.deleteIfExists(source);
+        }
+    }
+
+    // Helper method to copy a file to its destination with channel transfers instead of a heap buffer
+    static void copyIntoPlace(Path source, Path destination) throws IOException {
+        Path temp = createSiblingTemp(destination);
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+                out.force(true);
             }
-        } else {
-            if (content != null && responseCode == 200) {
-                saveTo(cachePath);
+            replaceAtomically(temp, destination);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Helper method to write an in-memory buffer to its destination
+    private static void writeIntoPlace(byte[] data, Path destination) throws IOException {
+        Path temp = createSiblingTemp(destination);
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
             }
+            replaceAtomically(temp, destination);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Helper method to create a temp file in the destination folder, so the final rename stays on one file system
+    static Path createSiblingTemp(Path destination) throws IOException {
+        Path parent = destination.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        return Files.createTempFile(parent, "." + destination.getFileName(), ".tmp");
+    }
+
+    // Helper method to rename a file over the destination in one step and persist the directory entry
+    static void replaceAtomically(Path source, Path destination) throws IOException {
+        Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Path parent = destination.toAbsolutePath().getParent();
+        try (FileChannel directory = FileChannel.open(parent, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform (e.g. Windows), the rename itself is still atomic
+        }
+    }
+
+    // Method to cache the content, called before fetch() it enables conditional requests against the cache file
+    public FileOperation cache(long maxAgeMillis, String cachePath) {
+        this.cachePath = cachePath;
+        this.cacheMaxAge = maxAgeMillis;
+        if (content != null && responseCode == 200) {
+            // Already fetched: just store the content together with its validators
+            saveTo(cachePath);
+            storeCacheEntry();
         }
         return this;
     }
 
+    // Method to cache the content, the freshness window only comes from the server's Cache-Control header
+    public FileOperation cache(String cachePath) {
+        return cache(0, cachePath);
+    }
+
     // Getter for the content
     public String getContent() {
         return content;
     }
 
+    // Method to parse the content, the result is shared with every other fetch of the same document in this run
+    public <T> T getParsed(Class<T> type, Function<String, T> parser) {
+        if (content == null) {
+            return null;
+        }
+        if (memo == null || memo.getContent() != content) {
+            return parser.apply(content);
+        }
+        return memo.getParsed(type, parser);
+    }
+
+    // Method to get the content as a shared JSONObject, callers must not modify it
+    public JSONObject asJson() {
+        return getParsed(JSONObject.class, JSONObject::new);
+    }
+
+    // Getter for the path of the streamed binary file (null in in-memory mode)
+    public Path getBinaryFile() {
+        return binaryFile;
+    }
+
+    // Getter for the hex digest of the downloaded file (null if no hash was requested)
+    public String getHash() {
+        return computedHash;
+    }
+
     // Getter for the response code
     public int getResponseCode() {
         return responseCode;
     }
 
+    // Getter for the validator of the fetched document: ETag, Last-Modified or (from the memory cache) a content fingerprint
+    public String getValidator() {
+        if (memo != null && memo.getContent() == content) {
+            return memo.validator;
+        }
+        return responseETag != null ? responseETag : responseLastModified;
+    }
+
     // Static method to create a FileOperation instance
     public static FileOperation getFile(String source) {
         return new FileOperation(source);
     }
 
+    // Static method to fetch a batch of files asynchronously, one CompletableFuture per spec
+    public static BatchFetch fetchAll(List<BatchFetch.Spec> specs) {
+        return new BatchFetch(specs).start();
+    }
+
     // Helper method to read content from an InputStream
-    private String readContentFromStream(InputStream in) throws IOException {
-        StringBuilder contentBuilder = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                contentBuilder.append(line).append("\n");
+    private String readContentFromStream(InputStream in, long sizeHint) throws IOException {
+        // Decode in large blocks instead of line by line, the size hint avoids regrowing the builder
+        StringBuilder contentBuilder = new StringBuilder(sizeHint > 0 && sizeHint < Integer.MAX_VALUE ? (int) sizeHint : 8192);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[16384];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                contentBuilder.append(buffer, 0, read);
             }
         }
         return contentBuilder.toString();
     }
 
+    // Helper method to read the raw bytes from an InputStream
+    private static byte[] readBytesFromStream(InputStream in, long sizeHint) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream(sizeHint > 0 && sizeHint < Integer.MAX_VALUE ? (int) sizeHint : 8192);
+        try (InputStream input = in) {
+            byte[] buffer = new byte[16384];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                data.write(buffer, 0, read);
+            }
+        }
+        return data.toByteArray();
+    }
+
+    // Helper method to wrap the response body in a streaming decoder for its Content-Encoding
+    private static InputStream decodeContent(InputStream in, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return in;
+        }
+        switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, 16384);
+            case "deflate":
+                // "deflate" should be zlib wrapped, but some servers send raw deflate data
+                PushbackInputStream pushback = new PushbackInputStream(in, 1);
+                int first = pushback.read();
+                if (first != -1) {
+                    pushback.unread(first);
+                }
+                boolean zlibWrapped = (first & 0x0F) == 8;  // Compression method "deflate" in the zlib header
+                return new InflaterInputStream(pushback, new Inflater(!zlibWrapped), 16384);
+            case "identity":
+                return in;
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    // Helper method to get the host of a URL, null for local paths
+    private static String getHost(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
     // Method to extract the basename (filename) from a URL or a local file path
     public static String getBaseName(String urlOrPath) {
         // Try to parse the string as a URL and extract the path part if it's a valid URL
@@ -0,0 +1,34 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+// Limits the number of concurrent connections per host across all downloads
+public class HostLimiter {
+
+    private static final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    // Method to acquire a connection slot for the given host, blocks until one is free
+    public static void acquire(String host) throws InterruptedIOException {
+        try {
+            getPermits(host).acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + host);
+        }
+    }
+
+    // Method to release a previously acquired connection slot
+    public static void release(String host) {
+        getPermits(host).release();
+    }
+
+    // Helper method to get (or lazily create) the semaphore of a host
+    private static Semaphore getPermits(String host) {
+        return hostPermits.computeIfAbsent(host.toLowerCase(), h -> new Semaphore(Config.maxConnectionsPerHost, true));
+    }
+}
@@ -0,0 +1,144 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+// Shared HTTP client layer for all FileOperation requests.
+// Connections are handed back to the JDK keep-alive cache instead of being disconnected,
+// so repeated requests to the same host reuse the TCP connection and resume the TLS session.
+public class HttpConnectionPool {
+
+    private static final Logger logger = LoggerUtility.getLogger(HttpConnectionPool.class);
+
+    private static volatile boolean initialized = false;
+
+    // Host permit held by each open connection, released together with the connection
+    private static final Map<HttpURLConnection, Lease> leases = new ConcurrentHashMap<>();
+
+    // State of a connection handed out by the pool
+    private static class Lease {
+        final String host;
+        volatile boolean connected = false;
+
+        Lease(String host) {
+            this.host = host;
+        }
+    }
+
+    // Method to open a connection through the pool, the caller has to connect() and release() it
+    public static HttpURLConnection open(URL url, String method, Map<String, String> headers) throws IOException {
+        init();
+
+        String host = url.getHost();
+        HostLimiter.acquire(host);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod(method);
+
+            // Set headers
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            if (!Config.httpKeepAlive) {
+                connection.setRequestProperty("Connection", "close");
+            }
+
+            connection.setConnectTimeout(5000); // 5 seconds timeout
+            connection.setReadTimeout(Config.readTimeout);  // Default for callers that set no own timeout
+            leases.put(connection, new Lease(host));
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            HostLimiter.release(host);
+            throw e;
+        }
+    }
+
+    // Method to connect an opened connection
+    public static void connect(HttpURLConnection connection) throws IOException {
+        connection.connect();
+        Lease lease = leases.get(connection);
+        if (lease != null) {
+            lease.connected = true;
+        }
+    }
+
+    // Method to connect an opened connection, the name lookup and the connection setup are timed into the metrics
+    public static void connect(HttpURLConnection connection, RequestMetrics metrics) throws IOException {
+        if (metrics == null) {
+            connect(connection);
+            return;
+        }
+        // Resolved up front to time it separately, connect() then gets the address from the JDK name cache
+        long lookupStart = System.nanoTime();
+        try {
+            InetAddress.getByName(connection.getURL().getHost());
+        } catch (UnknownHostException e) {
+            // Reported by connect() below
+        }
+        long connectStart = System.nanoTime();
+        connect(connection);
+        metrics.connected(connectStart - lookupStart, System.nanoTime() - connectStart);
+    }
+
+    // Method to hand a connection back to the keep-alive cache and free its host permit
+    public static void release(HttpURLConnection connection) {
+        if (connection == null) {
+            return;
+        }
+        Lease lease = leases.remove(connection);
+        try {
+            if (!Config.httpKeepAlive || lease == null || !lease.connected) {
+                connection.disconnect();
+                return;
+            }
+            // Closing the body (instead of disconnect()) lets the JDK put the connection back into its cache.
+            // Unread rest of the body is skipped by the JDK if it is small, otherwise the socket is closed.
+            InputStream in = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (in != null) {
+                in.close();
+            }
+        } catch (IOException e) {
+            // The connection is broken anyway and will not be reused
+            connection.disconnect();
+        } finally {
+            if (lease != null) {
+                HostLimiter.release(lease.host);
+            }
+        }
+    }
+
+    // Helper method to apply the pool settings once, before the first connection is opened
+    private static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+
+        // Read once by the JDK keep-alive cache when it is first used
+        System.setProperty("http.keepAlive", String.valueOf(Config.httpKeepAlive));
+        System.setProperty("http.maxConnections", String.valueOf(Config.maxConnectionsPerHost));
+
+        // TLS sessions are cached per host and port, so a new connection only needs an abbreviated handshake
+        try {
+            SSLSessionContext sessionContext = SSLContext.getDefault().getClientSessionContext();
+            sessionContext.setSessionCacheSize(Config.tlsSessionCacheSize);
+            sessionContext.setSessionTimeout(Config.tlsSessionTimeout);
+        } catch (NoSuchAlgorithmException e) {
+            logger.warning("TLS session cache could not be configured: " + e.getMessage());
+        }
+
+        logger.fine("HTTP pool initialized (keep-alive: " + Config.httpKeepAlive + ", max connections per host: " + Config.maxConnectionsPerHost + ")");
+        initialized = true;
+    }
+}
@@ -0,0 +1,66 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+// Writes every progress event as one JSON line, for panels and scripts that drive the installer
+public class JsonProgressSink implements ProgressListener, AutoCloseable {
+
+    private static final Logger logger = LoggerUtility.getLogger(JsonProgressSink.class);
+
+    private final Writer writer;
+    private boolean failed = false;
+
+    // Constructor
+    public JsonProgressSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    // Method to create a sink that appends to a file
+    public static JsonProgressSink toFile(Path file) throws IOException {
+        return new JsonProgressSink(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    @Override
+    public void onProgress(ProgressEvent event) {
+        JSONObject json = new JSONObject();
+        json.put("type", event.getType().name().toLowerCase());
+        json.put("url", event.getSource());
+        json.put("file", event.getFileName());
+        json.put("bytes", event.getBytesDone());
+        json.put("total", event.getBytesTotal());
+        json.put("percent", event.getPercent());
+        json.put("bytesPerSecond", event.getBytesPerSecond());
+        json.put("elapsedMillis", event.getElapsedMillis());
+
+        // Downloads of a batch report from several threads
+        synchronized (writer) {
+            if (failed) {
+                return;
+            }
+            try {
+                writer.write(json.toString());
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                failed = true;
+                logger.warning("Progress could not be written, JSON progress is disabled: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
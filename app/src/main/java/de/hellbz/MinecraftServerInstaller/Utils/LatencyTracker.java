@@ -0,0 +1,49 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Recent time-to-first-byte samples per host, used to decide when a request is late enough to be hedged
+public class LatencyTracker {
+
+    private static final int SAMPLES = 64;  // Ring buffer size per host
+    private static final int MIN_SAMPLES = 8;  // Fewer samples give no meaningful percentile
+
+    private static final Map<String, Samples> hosts = new ConcurrentHashMap<>();
+
+    // Ring buffer of the latest samples of one host
+    private static class Samples {
+        private final long[] values = new long[SAMPLES];
+        private int count = 0;
+        private int next = 0;
+
+        synchronized void add(long value) {
+            values[next] = value;
+            next = (next + 1) % SAMPLES;
+            count = Math.min(count + 1, SAMPLES);
+        }
+
+        synchronized long percentile(double p) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)];
+        }
+    }
+
+    // Method to record the time to first byte of a request
+    public static void record(String host, long nanos) {
+        if (host != null) {
+            hosts.computeIfAbsent(host, key -> new Samples()).add(nanos);
+        }
+    }
+
+    // Method to get a percentile (0.95 = p95) of the recent samples in nanoseconds, -1 if there are not enough
+    public static long percentile(String host, double p) {
+        Samples samples = host != null ? hosts.get(host) : null;
+        return samples != null ? samples.percentile(p) : -1;
+    }
+}
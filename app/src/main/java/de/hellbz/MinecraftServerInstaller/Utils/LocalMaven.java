@@ -0,0 +1,149 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+
+// Local maven repository in msi_data/libraries, shared by all installs on this host.
+// Libraries are downloaded in parallel (FileOperation.fetchAll), verified by their sha1 and linked into the instances.
+public class LocalMaven {
+
+    private static final Logger logger = LoggerUtility.getLogger(LocalMaven.class);
+
+    // One library: maven name, path in the repository layout, download URL and the expected sha1 (may be null)
+    public static class Artifact {
+        final String name;
+        final String path;
+        final String url;
+        final String sha1;
+        final long size;
+
+        // Constructor
+        public Artifact(String name, String path, String url, String sha1, long size) {
+            this.name = name;
+            this.path = path != null ? path : toPath(name);
+            this.url = url;
+            this.sha1 = sha1 != null && !sha1.isEmpty() ? sha1.toLowerCase() : null;
+            this.size = size;
+        }
+
+        // Static method to create an artifact from its maven name and the base URL of its repository
+        public static Artifact of(String name, String repository, String sha1, long size) {
+            String path = toPath(name);
+            String base = repository.endsWith("/") ? repository : repository + "/";
+            return new Artifact(name, path, base + path, sha1, size);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getSha1() {
+            return sha1;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    // Method to convert a maven name (group:artifact:version[:classifier][@extension]) to its repository path
+    public static String toPath(String name) {
+        String extension = "jar";
+        int at = name.indexOf('@');
+        if (at >= 0) {
+            extension = name.substring(at + 1);
+            name = name.substring(0, at);
+        }
+        String[] parts = name.split(":");
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid maven name: " + name);
+        }
+        String group = parts[0].replace('.', '/');
+        String file = parts[1] + "-" + parts[2] + (parts.length > 3 ? "-" + parts[3] : "") + "." + extension;
+        return group + "/" + parts[1] + "/" + parts[2] + "/" + file;
+    }
+
+    // Method to get the location of a library in the shared repository
+    public static Path resolve(String path) {
+        return Config.librariesFolder.resolve(path);
+    }
+
+    // Method to check if a library is already in the shared repository
+    public static boolean contains(Artifact artifact) {
+        if (!Files.isRegularFile(resolve(artifact.path))) {
+            return false;
+        }
+        // With a known hash the object must still be in the store, otherwise the file is fetched (and verified) again
+        return artifact.sha1 == null || ArtifactStore.contains(artifact.sha1);
+    }
+
+    // Method to download all missing libraries in parallel, returns the number of failed downloads
+    public static int fetchAll(Collection<Artifact> artifacts) {
+        Collection<Artifact> distinct = distinct(artifacts).values();
+        List<BatchFetch.Spec> specs = new ArrayList<>();
+        for (Artifact artifact : distinct) {
+            if (artifact.url == null || artifact.url.isEmpty() || contains(artifact)) {
+                continue;
+            }
+            BatchFetch.Spec spec = new BatchFetch.Spec(artifact.url, resolve(artifact.path).toString()).size(artifact.size);
+            if (artifact.sha1 != null) {
+                spec.hash("SHA-1", artifact.sha1);
+            }
+            specs.add(spec);
+        }
+        if (specs.isEmpty()) {
+            logger.info("All " + distinct.size() + " libraries are in the local repository.");
+            return 0;
+        }
+
+        BatchFetch batch = FileOperation.fetchAll(specs);
+        for (CompletableFuture<FileOperation> future : batch.getFutures()) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                logger.warning(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+        }
+        BatchFetch.Progress progress = batch.getProgress();
+        logger.info("Libraries fetched: " + progress);
+        return progress.filesFailed;
+    }
+
+    // Method to link the libraries from the shared repository into the libraries folder of an instance
+    public static void linkInto(Collection<Artifact> artifacts, Path librariesFolder) throws IOException {
+        for (Artifact artifact : distinct(artifacts).values()) {
+            Path source = resolve(artifact.path);
+            if (Files.isRegularFile(source)) {
+                ArtifactStore.link(source, librariesFolder.resolve(artifact.path));
+            }
+        }
+    }
+
+    // Helper method to drop duplicates, the same library is often listed by several files (e.g. profile and version JSON)
+    private static Map<String, Artifact> distinct(Collection<Artifact> artifacts) {
+        Map<String, Artifact> byPath = new LinkedHashMap<>();
+        for (Artifact artifact : artifacts) {
+            byPath.putIfAbsent(artifact.path, artifact);
+        }
+        return byPath;
+    }
+}
@@ -0,0 +1,56 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+// Writes the download progress to the log in steps, for runs without an interactive console.
+// One renderer can be registered for all downloads (see progressLog), the steps are tracked per download.
+public class LogProgressRenderer implements ProgressListener {
+
+    private static final Logger logger = LoggerUtility.getLogger(LogProgressRenderer.class);
+
+    private final int stepPercent;
+    private final Map<String, Integer> lastLoggedSteps = new ConcurrentHashMap<>();  // By source URL
+
+    // Constructor, logs every 10%
+    public LogProgressRenderer() {
+        this(10);
+    }
+
+    // Constructor with a custom step width in percent
+    public LogProgressRenderer(int stepPercent) {
+        this.stepPercent = Math.max(1, stepPercent);
+    }
+
+    @Override
+    public void onProgress(ProgressEvent event) {
+        switch (event.getType()) {
+            case STARTED:
+                lastLoggedSteps.put(event.getSource(), -1);
+                logger.info("Downloading " + event.getFileName() + " ("
+                        + (event.getBytesTotal() >= 0 ? ProgressEvent.formatSize(event.getBytesTotal()) : "unknown size") + ")");
+                break;
+            case PROGRESS:
+                int percent = event.getPercent();
+                Integer lastLoggedStep = lastLoggedSteps.get(event.getSource());
+                if (percent < 0 || (lastLoggedStep != null && percent / stepPercent <= lastLoggedStep)) {
+                    return;
+                }
+                lastLoggedSteps.put(event.getSource(), percent / stepPercent);
+                logger.info("Downloading " + event.getFileName() + ": " + percent + "% ("
+                        + ProgressEvent.formatSize(event.getBytesDone()) + ", "
+                        + ProgressEvent.formatSize(event.getBytesPerSecond()) + "/s)");
+                break;
+            case FINISHED:
+                lastLoggedSteps.remove(event.getSource());
+                logger.info("Downloaded " + event.getFileName() + ": " + ProgressEvent.formatSize(event.getBytesDone())
+                        + " in " + event.getElapsedMillis() + " ms (" + ProgressEvent.formatSize(event.getBytesPerSecond()) + "/s)");
+                break;
+            case FAILED:
+                lastLoggedSteps.remove(event.getSource());
+                logger.warning("Download of " + event.getFileName() + " failed after " + ProgressEvent.formatSize(event.getBytesDone()));
+                break;
+        }
+    }
+}
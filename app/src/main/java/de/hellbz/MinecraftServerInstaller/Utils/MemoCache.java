@@ -0,0 +1,99 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+// In-memory LRU layer in front of the disk cache: fetched documents and their parsed form, keyed by URL and validator
+public class MemoCache {
+
+    private static final Logger logger = LoggerUtility.getLogger(MemoCache.class);
+
+    // Access ordered, the eldest entry is the least recently used one
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long totalSize = 0;
+
+    // One fetched document, the parsed representations are shared by all callers and must not be modified
+    public static class Entry {
+        final String url;
+        final String validator;  // ETag, Last-Modified or a content fingerprint
+        final String content;
+        volatile long freshUntil;
+        private final Map<Class<?>, Object> parsed = new ConcurrentHashMap<>();
+
+        Entry(String url, String validator, String content, long freshUntil) {
+            this.url = url;
+            this.validator = validator;
+            this.content = content;
+            this.freshUntil = freshUntil;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        // Method to parse the content once per type, later calls return the same object
+        @SuppressWarnings("unchecked")
+        public <T> T getParsed(Class<T> type, Function<String, T> parser) {
+            return (T) parsed.computeIfAbsent(type, key -> parser.apply(content));
+        }
+
+        // Helper method for the memory budget, Java strings use up to two bytes per character
+        long size() {
+            return 2L * content.length();
+        }
+    }
+
+    // Method to get an entry that may be used without asking the disk cache or the server
+    public static synchronized Entry getFresh(String url) {
+        Entry entry = entries.get(url);
+        if (entry == null || System.currentTimeMillis() >= entry.freshUntil) {
+            return null;
+        }
+        return entry;
+    }
+
+    // Method to add a fetched document, an existing entry with the same validator is kept together with its parsed forms
+    public static synchronized Entry put(String url, String validator, String content, long freshUntil) {
+        Entry existing = entries.get(url);
+        if (existing != null && existing.validator.equals(validator)) {
+            existing.freshUntil = Math.max(existing.freshUntil, freshUntil);
+            return existing;
+        }
+
+        Entry entry = new Entry(url, validator, content, freshUntil);
+        if (existing != null) {
+            entries.remove(url);
+            totalSize -= existing.size();
+        }
+        if (entry.size() > Config.memoCacheSize) {
+            return entry;  // Too large to keep, the caller still gets its parsed forms
+        }
+        entries.put(url, entry);
+        totalSize += entry.size();
+        evict();
+        return entry;
+    }
+
+    // Method to drop all entries
+    public static synchronized void clear() {
+        entries.clear();
+        totalSize = 0;
+    }
+
+    // Helper method to remove the least recently used entries until the budget is met
+    private static void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalSize > Config.memoCacheSize && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            totalSize -= eldest.size();
+            logger.fine("Evicted from memory cache: " + eldest.url);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+// Vanilla server jar of a Minecraft version, taken by its sha1 from the artifact store or downloaded into it.
+// Used by every installer that runs on top of the vanilla jar, the modules stay independent of each other.
+public class MinecraftServerJar {
+
+    private static final Logger logger = LoggerUtility.getLogger(MinecraftServerJar.class);
+
+    // The v2 manifest contains the sha1 of every version JSON, which can then stay in the artifact store
+    public static final String MANIFEST_URL = "https://piston-meta.mojang.com/mc/game/version_manifest_v2.json";
+
+    // Cache file of the manifest and its binary index, the names come from the Vanilla module that introduced them
+    private static final String MANIFEST_CACHE_FILE = "MinecraftVanilla_versions_v2.json";
+    private static final String INDEX_FILE = "MinecraftVanilla_versions.idx";
+
+    // Method to fetch the version manifest (cached) and get its index, parsed only once per run
+    public static VersionIndex loadVersionIndex() {
+        // Verwende FileOperation, um die Datei herunterzuladen und zu cachen
+        FileOperation downloadResult = FileOperation.getFile(MANIFEST_URL)
+                .cache(Config.tempFolder.resolve(MANIFEST_CACHE_FILE).toAbsolutePath().toString())  // Prüft den Cache und fragt nach Ablauf von Cache-Control max-age beim Server nach
+                .fetch();
+
+        // Überprüfe den ResponseCode, um zu sehen, ob die Datei aus dem Cache oder von der URL geladen wurde
+        if (downloadResult.getResponseCode() == 200) {
+            logger.info("File successfully fetched from URL and saved.");
+        } else if (downloadResult.getResponseCode() == 304) {
+            logger.info("File loaded from cache.");
+        } else {
+            logger.severe("Failed to fetch the version manifest file. Response code: " + downloadResult.getResponseCode());
+            return null;
+        }
+
+        // Streamt das Manifest ohne DOM in den kompakten Index, geteilt von Versionsliste und Installation.
+        // Gehört der gespeicherte Index zum selben Manifest (ETag), wird er gelesen statt das JSON zu parsen.
+        Path indexFile = Config.indexFolder.resolve(INDEX_FILE);
+        String validator = downloadResult.getValidator();
+        return downloadResult.getParsed(VersionIndex.class, manifest -> {
+            String manifestValidator = validator != null ? validator : "#" + manifest.length() + ":" + manifest.hashCode();
+            VersionIndex index = VersionIndex.read(indexFile, manifestValidator);
+            if (index != null) {
+                logger.fine("Version index loaded from " + indexFile);
+                return index;
+            }
+            index = VersionIndex.parse(manifest);
+            try {
+                index.write(indexFile, manifestValidator);
+            } catch (IOException e) {
+                logger.warning("Could not store the version index: " + e.getMessage());
+            }
+            return index;
+        });
+    }
+
+    // Method to fetch the server jar of a version into a folder, returns the jar or null if it could not be fetched
+    public static Path fetch(String version, Path folder) {
+        VersionIndex index = loadVersionIndex();
+        if (index == null) {
+            return null;
+        }
+        int position = index.indexOf(version);
+        if (position < 0) {
+            logger.severe("Version " + version + " not found in the version manifest.");
+            return null;
+        }
+        return fetchFromVersionJson(index.getUrl(position), index.getSha1(position), folder);
+    }
+
+    // Method to fetch the server jar listed in a version JSON (taken from the store if its sha1 is known)
+    public static Path fetchFromVersionJson(String versionUrl, String versionSha1, Path folder) {
+        FileOperation versionDetailsDownload = FileOperation.getFile(versionUrl)
+                .expectHash(versionSha1)
+                .fetch();
+        if (versionDetailsDownload.getResponseCode() != 200 && versionDetailsDownload.getResponseCode() != 304) {
+            logger.severe("Failed to fetch version details. Response code: " + versionDetailsDownload.getResponseCode());
+            return null;
+        }
+
+        JSONObject downloads = versionDetailsDownload.asJson().optJSONObject("downloads");
+        JSONObject serverDownload = downloads != null ? downloads.optJSONObject("server") : null;
+        if (serverDownload == null) {
+            logger.warning("No server download available for this version.");
+            return null;
+        }
+        String serverDownloadUrl = serverDownload.getString("url");
+        logger.info("Server download URL: " + serverDownloadUrl);
+
+        String targetFile = FileOperation.resolveBaseToFolder(folder, serverDownloadUrl);
+        // Lade die Datei herunter (oder nimm sie per sha1 aus dem Artifact-Store) und speichere sie im richtigen Verzeichnis
+        FileOperation download = FileOperation.getFile(serverDownloadUrl)
+                .expectHash(serverDownload.optString("sha1", null))
+                .resumable(targetFile)
+                .fetchBinaryWithProgressBar();
+        // Every version names its jar server.jar, a jar left over from another version must not count as success
+        if (download.getResponseCode() != 200 && download.getResponseCode() != 304) {
+            logger.severe("Failed to fetch the server jar. Response code: " + download.getResponseCode());
+            return null;
+        }
+        Path jar = Paths.get(targetFile);
+        try {
+            download.save(jar);
+        } catch (IOException e) {
+            logger.severe("Failed to save the server jar: " + e.getMessage());
+            return null;
+        }
+        return jar;
+    }
+}
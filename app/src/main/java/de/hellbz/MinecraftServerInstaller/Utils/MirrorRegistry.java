@@ -0,0 +1,197 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Alternative sources per upstream host (mirrors.<host>= in msi.conf), ranked by measured latency.
+// A mirror base URL replaces scheme, host and port of the original URL, the path is kept:
+// https://piston-meta.mojang.com/mc/game/version_manifest.json with mirror http://10.0.0.5:8080/mojang
+// becomes http://10.0.0.5:8080/mojang/mc/game/version_manifest.json
+public class MirrorRegistry {
+
+    private static final Logger logger = LoggerUtility.getLogger(MirrorRegistry.class);
+
+    private static final long FAILURE_COOLDOWN_MILLIS = 60_000;  // A failed mirror is tried last for this long
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private static final Map<String, HostMirrors> hosts = new ConcurrentHashMap<>();
+
+    // One source of a host, either a mirror or the origin itself
+    static class Mirror {
+        final String base;  // Without trailing slash
+        volatile long latencyNanos = UNREACHABLE;
+        volatile long failedUntil = 0;
+
+        Mirror(String base) {
+            this.base = base;
+        }
+
+        // Helper method to build the URL of a file on this mirror
+        String rewrite(URL original) {
+            return base + original.getFile();
+        }
+    }
+
+    // The mirrors of one upstream host, probed once when the host is used for the first time
+    static class HostMirrors {
+        final List<Mirror> mirrors = new ArrayList<>();
+        private boolean probed = false;
+
+        synchronized void ensureProbed() {
+            if (!probed) {
+                probe(mirrors);
+                probed = true;
+            }
+        }
+
+        // Method to get the mirrors in the order they should be tried
+        List<Mirror> ranked() {
+            long now = System.currentTimeMillis();
+            List<Mirror> ranked = new ArrayList<>(mirrors);
+            ranked.sort(Comparator.<Mirror>comparingInt(mirror -> mirror.failedUntil > now ? 1 : 0)
+                    .thenComparingLong(mirror -> mirror.latencyNanos));
+            return ranked;
+        }
+    }
+
+    // Method to get the URLs to try for a download, best source first. Without mirrors only the URL itself.
+    public static List<String> candidates(String url) {
+        URL parsed;
+        try {
+            parsed = new URL(url);
+        } catch (MalformedURLException e) {
+            return Collections.singletonList(url);
+        }
+        HostMirrors hostMirrors = getHostMirrors(parsed);
+        if (hostMirrors == null) {
+            return Collections.singletonList(url);
+        }
+
+        hostMirrors.ensureProbed();
+        List<String> candidates = new ArrayList<>();
+        for (Mirror mirror : hostMirrors.ranked()) {
+            candidates.add(mirror.rewrite(parsed));
+        }
+        return candidates;
+    }
+
+    // Method to report a failed request (error, bad hash or slow first byte), the mirror is moved to the end for a while
+    public static void reportFailure(String candidateUrl) {
+        Mirror mirror = findMirror(candidateUrl);
+        if (mirror != null) {
+            mirror.failedUntil = System.currentTimeMillis() + FAILURE_COOLDOWN_MILLIS;
+            logger.warning("Mirror " + mirror.base + " failed, it is tried last for the next " + TimeUnit.MILLISECONDS.toSeconds(FAILURE_COOLDOWN_MILLIS) + " seconds.");
+        }
+    }
+
+    // Method to report a successful request with its time to first byte, keeps the ranking up to date
+    public static void reportSuccess(String candidateUrl, long timeToFirstByteNanos) {
+        Mirror mirror = findMirror(candidateUrl);
+        if (mirror != null) {
+            mirror.failedUntil = 0;
+            long latency = mirror.latencyNanos;
+            // Moving average, a single slow response does not reorder the mirrors
+            mirror.latencyNanos = latency == UNREACHABLE ? timeToFirstByteNanos : (latency * 3 + timeToFirstByteNanos) / 4;
+        }
+    }
+
+    // Method to check if alternative sources exist for the host of a URL
+    public static boolean hasMirrors(String url) {
+        try {
+            return getHostMirrors(new URL(url)) != null;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    // Method to forget all probes and rankings, the mirrors are read from the Config again on the next request
+    public static void reset() {
+        hosts.clear();
+    }
+
+    // Helper method to get the mirrors of a host, null if none are configured
+    private static HostMirrors getHostMirrors(URL url) {
+        List<String> configured = Config.mirrors.get(url.getHost());
+        if (configured == null || configured.isEmpty()) {
+            return null;
+        }
+        return hosts.computeIfAbsent(url.getHost(), host -> {
+            HostMirrors hostMirrors = new HostMirrors();
+            for (String base : configured) {
+                hostMirrors.mirrors.add(new Mirror(stripTrailingSlash(base)));
+            }
+            if (Config.mirrorIncludeOrigin) {
+                String origin = url.getProtocol() + "://" + url.getAuthority();
+                hostMirrors.mirrors.add(new Mirror(origin));
+            }
+            return hostMirrors;
+        });
+    }
+
+    // Helper method to find the mirror a candidate URL belongs to
+    private static Mirror findMirror(String candidateUrl) {
+        for (HostMirrors hostMirrors : hosts.values()) {
+            for (Mirror mirror : hostMirrors.mirrors) {
+                if (candidateUrl.startsWith(mirror.base + "/")) {
+                    return mirror;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Helper method to measure the latency of all mirrors of a host in parallel
+    private static void probe(List<Mirror> mirrors) {
+        List<CompletableFuture<Void>> probes = new ArrayList<>();
+        for (Mirror mirror : mirrors) {
+            probes.add(CompletableFuture.runAsync(() -> mirror.latencyNanos = measureLatency(mirror.base)));
+        }
+        CompletableFuture.allOf(probes.toArray(new CompletableFuture<?>[0])).join();
+
+        StringBuilder ranking = new StringBuilder();
+        for (Mirror mirror : mirrors) {
+            ranking.append(ranking.length() > 0 ? ", " : "").append(mirror.base).append(" = ")
+                    .append(mirror.latencyNanos == UNREACHABLE ? "unreachable" : TimeUnit.NANOSECONDS.toMillis(mirror.latencyNanos) + " ms");
+        }
+        logger.fine("Mirror latency: " + ranking);
+    }
+
+    // Helper method to time a HEAD request to the mirror, any HTTP answer counts as reachable
+    private static long measureLatency(String base) {
+        HttpURLConnection connection = null;
+        long start = System.nanoTime();
+        try {
+            connection = HttpConnectionPool.open(new URL(base + "/"), "HEAD", Collections.emptyMap());
+            connection.setReadTimeout(Config.mirrorFirstByteTimeout);
+            HttpConnectionPool.connect(connection);
+            int responseCode = connection.getResponseCode();
+            return responseCode < 500 ? System.nanoTime() - start : UNREACHABLE;
+        } catch (IOException e) {
+            return UNREACHABLE;
+        } finally {
+            HttpConnectionPool.release(connection);
+        }
+    }
+
+    // Helper method to normalize a configured base URL
+    private static String stripTrailingSlash(String base) {
+        String trimmed = base.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,402 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Syncs the files of a modpack manifest into an instance: a Modrinth .mrpack (modrinth.index.json plus overrides)
+// or a JSON list of {"url", "path", "sha1" | "sha256" | "sha512"} entries.
+// Only missing or changed files are downloaded (in parallel, hash-verified, kept in the artifact store) and
+// files of an earlier sync that are no longer listed are deleted. Files the pack never placed are not touched,
+// msi_modpack.json in the instance records which files the pack manages.
+public class ModpackSync {
+
+    private static final Logger logger = LoggerUtility.getLogger(ModpackSync.class);
+
+    private static final String STATE_FILE = "msi_modpack.json";
+    private static final String INDEX_FILE = "modrinth.index.json";
+
+    // Override folders of a .mrpack, server-overrides/ is applied after (and wins over) overrides/
+    private static final String[] OVERRIDE_FOLDERS = {"overrides/", "server-overrides/"};
+
+    private final String source;
+    private final Map<String, Entry> files;  // Path in the instance -> file, in manifest order
+    private final Path pack;  // The .mrpack with the overrides, null for a JSON manifest
+
+    // One downloaded file of the manifest
+    public static class Entry {
+        final String path;
+        final String url;
+        final String algorithm;
+        final String hash;
+        final long size;
+
+        // Constructor
+        public Entry(String path, String url, String algorithm, String hash, long size) {
+            this.path = path;
+            this.url = url;
+            this.algorithm = algorithm;
+            this.hash = hash.toLowerCase();
+            this.size = size;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+    }
+
+    // Outcome of a sync
+    public static class Result {
+        public int downloaded;
+        public int unchanged;
+        public int deleted;
+        public int failed;
+
+        @Override
+        public String toString() {
+            return downloaded + " downloaded, " + unchanged + " unchanged, " + deleted + " deleted" + (failed > 0 ? ", " + failed + " failed" : "");
+        }
+    }
+
+    private ModpackSync(String source, Map<String, Entry> files, Path pack) {
+        this.source = source;
+        this.files = files;
+        this.pack = pack;
+    }
+
+    // Method to load a manifest from a URL or a local file, a .mrpack is recognised by its content (zip)
+    public static ModpackSync load(String source) throws IOException {
+        Path file;
+        if (source.toLowerCase().startsWith("http://") || source.toLowerCase().startsWith("https://")) {
+            file = Config.tempFolder.resolve("modpack-" + FileOperation.getBaseName(source));
+            FileOperation download = FileOperation.getFile(source).fetchBinary();
+            if (download.getResponseCode() != 200 && download.getResponseCode() != 304) {
+                throw new IOException("Failed to fetch the modpack manifest " + source + " (HTTP " + download.getResponseCode() + ")");
+            }
+            download.save(file);
+        } else {
+            file = Paths.get(source);
+            if (!Files.isRegularFile(file)) {
+                throw new IOException("Modpack manifest not found: " + source);
+            }
+        }
+
+        if (isZip(file)) {
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                ZipEntry index = zip.getEntry(INDEX_FILE);
+                if (index == null) {
+                    throw new IOException(INDEX_FILE + " is missing in " + file.getFileName());
+                }
+                String json;
+                try (InputStream in = zip.getInputStream(index)) {
+                    json = readString(in);
+                }
+                return new ModpackSync(source, parse(json), file);
+            }
+        }
+        return new ModpackSync(source, parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)), null);
+    }
+
+    // Method to parse a manifest: a JSON array of files, or an object with "files" (simple list or modrinth.index.json)
+    static Map<String, Entry> parse(String json) throws IOException {
+        Map<String, Entry> files = new LinkedHashMap<>();
+        try {
+            String trimmed = json.trim();
+            JSONArray entries = trimmed.startsWith("[") ? new JSONArray(trimmed) : new JSONObject(trimmed).getJSONArray("files");
+            for (int i = 0; i < entries.length(); i++) {
+                Entry entry = parseEntry(entries.getJSONObject(i));
+                if (entry != null) {
+                    files.put(entry.path, entry);
+                }
+            }
+        } catch (JSONException e) {
+            throw new IOException("Invalid modpack manifest: " + e.getMessage(), e);
+        }
+        return files;
+    }
+
+    // Helper method to read one file of the manifest, null for client-only files of a .mrpack
+    private static Entry parseEntry(JSONObject file) throws IOException {
+        String path = checkPath(file.getString("path"));
+
+        JSONObject env = file.optJSONObject("env");
+        if (env != null && "unsupported".equals(env.optString("server"))) {
+            return null;
+        }
+
+        // Modrinth lists several download URLs, further ones are only alternatives (mirrors are configured per host)
+        JSONArray downloads = file.optJSONArray("downloads");
+        String url = downloads != null && downloads.length() > 0 ? downloads.getString(0) : file.optString("url", "");
+        if (url.isEmpty()) {
+            throw new IOException("No download URL for " + path);
+        }
+
+        // sha1 first: the artifact store and the other installers key their objects by it
+        JSONObject hashes = file.optJSONObject("hashes") != null ? file.getJSONObject("hashes") : file;
+        for (String[] hash : new String[][] {{"sha1", "SHA-1"}, {"sha512", "SHA-512"}, {"sha256", "SHA-256"}}) {
+            if (!hashes.optString(hash[0], "").isEmpty()) {
+                return new Entry(path, url, hash[1], hashes.getString(hash[0]), file.optLong("fileSize", file.optLong("size", -1)));
+            }
+        }
+        String hash = file.optString("hash", "");
+        String algorithm = hash.length() == 40 ? "SHA-1" : hash.length() == 64 ? "SHA-256" : hash.length() == 128 ? "SHA-512" : null;
+        if (algorithm == null) {
+            throw new IOException("No hash for " + path);
+        }
+        return new Entry(path, url, algorithm, hash, file.optLong("fileSize", file.optLong("size", -1)));
+    }
+
+    // Getter for the downloaded files of the manifest, in manifest order
+    public List<Entry> getFiles() {
+        return new ArrayList<>(files.values());
+    }
+
+    // Method to bring an instance to the state of the manifest
+    public Result sync(Path root) throws IOException {
+        Result result = new Result();
+        Map<String, JSONObject> before = readState(root);
+        Map<String, JSONObject> after = new TreeMap<>();
+
+        // 1. Compare the listed files with the instance, only missing or changed ones are downloaded
+        List<Entry> missing = new ArrayList<>();
+        for (Entry entry : files.values()) {
+            Path target = root.resolve(entry.path);
+            JSONObject state = before.get(entry.path);
+            if (isUnchanged(target, entry.hash, entry.algorithm, state)) {
+                after.put(entry.path, stamp(target, entry.hash, entry.algorithm));
+                result.unchanged++;
+            } else {
+                missing.add(entry);
+            }
+        }
+        download(root, missing, before, after, result);
+
+        // 2. Overrides of a .mrpack (configs, scripts) are copied, never linked, the instance may edit them
+        if (pack != null) {
+            applyOverrides(root, before, after, result);
+        }
+
+        // 3. Files of an earlier sync that the manifest no longer lists
+        for (String path : before.keySet()) {
+            if (after.containsKey(path)) {
+                continue;
+            }
+            Path file = root.resolve(checkPath(path));
+            if (Files.isRegularFile(file)) {
+                Files.delete(file);
+                logger.info("Removed " + path + ", it is no longer part of the modpack.");
+                result.deleted++;
+            }
+        }
+
+        writeState(root, after);
+        logger.info("Modpack " + FileOperation.getBaseName(source) + " synced: " + result);
+        return result;
+    }
+
+    // Helper method to download the missing files in parallel, a failed file keeps its old state (and is retried next time).
+    // The verified downloads land in the artifact store and are copied into the instance, not linked: mods are replaced
+    // by hand in place, which would otherwise change the shared object as well.
+    private void download(Path root, List<Entry> missing, Map<String, JSONObject> before, Map<String, JSONObject> after, Result result) {
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<BatchFetch.Spec> specs = new ArrayList<>();
+        for (Entry entry : missing) {
+            specs.add(new BatchFetch.Spec(entry.url, null).hash(entry.algorithm, entry.hash).size(entry.size));
+        }
+        BatchFetch batch = FileOperation.fetchAll(specs);
+        List<CompletableFuture<FileOperation>> futures = batch.getFutures();
+        for (int i = 0; i < futures.size(); i++) {
+            Entry entry = missing.get(i);
+            try {
+                futures.get(i).join();
+                FileOperation.copyIntoPlace(ArtifactStore.resolve(entry.hash), root.resolve(entry.path));
+                after.put(entry.path, stamp(root.resolve(entry.path), entry.hash, entry.algorithm));
+                result.downloaded++;
+            } catch (CompletionException | IOException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                logger.warning("Could not update " + entry.path + ": " + cause.getMessage());
+                if (before.containsKey(entry.path)) {
+                    after.put(entry.path, before.get(entry.path));
+                }
+                result.failed++;
+            }
+        }
+    }
+
+    // Helper method to extract the overrides. A file is only written if it is missing or the pack changed it since the
+    // last sync, changes made in the instance to an unchanged override are kept.
+    private void applyOverrides(Path root, Map<String, JSONObject> before, Map<String, JSONObject> after, Result result) throws IOException {
+        try (ZipFile zip = new ZipFile(pack.toFile())) {
+            Map<String, ZipEntry> overrides = new LinkedHashMap<>();
+            for (String folder : OVERRIDE_FOLDERS) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().startsWith(folder) && entry.getName().length() > folder.length()) {
+                        overrides.put(checkPath(entry.getName().substring(folder.length())), entry);
+                    }
+                }
+            }
+
+            for (Map.Entry<String, ZipEntry> override : overrides.entrySet()) {
+                String path = override.getKey();
+                Path target = root.resolve(path);
+                String sha1;
+                try (InputStream in = zip.getInputStream(override.getValue())) {
+                    sha1 = hash(in);
+                }
+                JSONObject state = before.get(path);
+                if (Files.isRegularFile(target) && state != null && sha1.equals(state.optString("hash"))) {
+                    after.put(path, state);
+                    result.unchanged++;
+                    continue;
+                }
+                Path temp = FileOperation.createSiblingTemp(target);
+                try {
+                    try (InputStream in = zip.getInputStream(override.getValue())) {
+                        Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    FileOperation.replaceAtomically(temp, target);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                if (path.endsWith(".sh")) {
+                    target.toFile().setExecutable(true);
+                }
+                after.put(path, stamp(target, sha1, "SHA-1"));
+                result.downloaded++;
+            }
+        }
+    }
+
+    // Helper method to check a file against the manifest. Size and modification time of the last sync spare the hashing.
+    private static boolean isUnchanged(Path target, String hash, String algorithm, JSONObject state) throws IOException {
+        if (!Files.isRegularFile(target)) {
+            return false;
+        }
+        if (state != null && hash.equals(state.optString("hash"))
+                && Files.size(target) == state.optLong("size", -1)
+                && Files.getLastModifiedTime(target).toMillis() == state.optLong("modified", -1)) {
+            return true;
+        }
+        return hash.equals(ArtifactStore.hash(target, algorithm));
+    }
+
+    // Helper method to record a synced file: hash, size and modification time
+    private static JSONObject stamp(Path file, String hash, String algorithm) throws IOException {
+        JSONObject state = new JSONObject();
+        state.put("hash", hash);
+        state.put("algorithm", algorithm);
+        state.put("size", Files.size(file));
+        state.put("modified", Files.getLastModifiedTime(file).toMillis());
+        return state;
+    }
+
+    // Helper method to read the managed files of the last sync, an unreadable state manages nothing (nothing is deleted)
+    private static Map<String, JSONObject> readState(Path root) {
+        Map<String, JSONObject> state = new TreeMap<>();
+        Path stateFile = root.resolve(STATE_FILE);
+        if (!Files.isRegularFile(stateFile)) {
+            return state;
+        }
+        try {
+            JSONObject files = new JSONObject(new String(Files.readAllBytes(stateFile), StandardCharsets.UTF_8)).getJSONObject("files");
+            for (String path : files.keySet()) {
+                state.put(path, files.getJSONObject(path));
+            }
+        } catch (IOException | JSONException e) {
+            logger.warning("Ignoring damaged " + STATE_FILE + ": " + e.getMessage());
+            state.clear();
+        }
+        return state;
+    }
+
+    // Helper method to write the managed files, replaced atomically so an interrupted sync keeps the previous state
+    private void writeState(Path root, Map<String, JSONObject> files) throws IOException {
+        JSONObject state = new JSONObject();
+        state.put("source", source);
+        state.put("synced", System.currentTimeMillis());
+        state.put("files", files);
+        Path stateFile = root.resolve(STATE_FILE);
+        Path temp = FileOperation.createSiblingTemp(stateFile);
+        try {
+            Files.write(temp, state.toString(2).getBytes(StandardCharsets.UTF_8));
+            FileOperation.replaceAtomically(temp, stateFile);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Helper method to reject absolute paths and paths leaving the instance (e.g. "../../.bashrc")
+    private static String checkPath(String path) throws IOException {
+        String normalized = path.replace('\\', '/');
+        Path relative = Paths.get(normalized).normalize();
+        if (normalized.isEmpty() || normalized.startsWith("/") || relative.isAbsolute() || relative.startsWith("..")
+                || normalized.matches("^[A-Za-z]:.*") || normalized.equals(STATE_FILE)) {
+            throw new IOException("Invalid path in modpack manifest: " + path);
+        }
+        return normalized;
+    }
+
+    // Helper method to check for the zip signature of a .mrpack
+    private static boolean isZip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 'P' && in.read() == 'K';
+        }
+    }
+
+    // Helper method to compute the sha1 of a zip entry
+    private static String hash(InputStream in) throws IOException {
+        MessageDigest digest = ArtifactStore.createDigest("SHA-1");
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+            byte[] buffer = new byte[65536];
+            while (digestIn.read(buffer) != -1) {
+                // Only the digest is needed
+            }
+        }
+        return ArtifactStore.toHex(digest.digest());
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            data.write(buffer, 0, read);
+        }
+        return new String(data.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
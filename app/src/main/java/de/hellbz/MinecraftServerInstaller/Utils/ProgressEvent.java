@@ -0,0 +1,80 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.util.concurrent.TimeUnit;
+
+// Immutable snapshot of a running download, handed to every ProgressListener
+public class ProgressEvent {
+
+    public enum Type {
+        STARTED,
+        PROGRESS,
+        FINISHED,
+        FAILED
+    }
+
+    private final Type type;
+    private final String source;
+    private final String fileName;
+    private final long bytesDone;
+    private final long bytesTotal;  // -1 if the server did not send a Content-Length
+    private final long elapsedNanos;
+
+    // Constructor
+    public ProgressEvent(Type type, String source, String fileName, long bytesDone, long bytesTotal, long elapsedNanos) {
+        this.type = type;
+        this.source = source;
+        this.fileName = fileName;
+        this.bytesDone = bytesDone;
+        this.bytesTotal = bytesTotal;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getBytesDone() {
+        return bytesDone;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    // Method to get the progress in percent, -1 if the total size is unknown
+    public int getPercent() {
+        if (bytesTotal <= 0) {
+            return type == Type.FINISHED ? 100 : -1;
+        }
+        return (int) Math.min(100, bytesDone * 100 / bytesTotal);
+    }
+
+    // Method to get the average speed since the start of the download
+    public long getBytesPerSecond() {
+        return elapsedNanos > 0 ? (long) (bytesDone * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos) : 0;
+    }
+
+    // Helper method to format file sizes in a human-readable format (MB, GB, etc.)
+    public static String formatSize(long sizeInBytes) {
+        double size = sizeInBytes;
+        String[] units = {"B", "KB", "MB", "GB", "TB"};
+        int unitIndex = 0;
+        while (size >= 1024 && unitIndex < units.length - 1) {
+            size /= 1024;
+            unitIndex++;
+        }
+        return String.format("%.2f %s", size, units[unitIndex]);
+    }
+}
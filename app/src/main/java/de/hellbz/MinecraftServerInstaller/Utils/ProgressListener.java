@@ -0,0 +1,9 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+// Receives the progress of a download, see FileOperation.progress()
+// Called on the downloading thread at most Config.progressUpdatesPerSecond times per second, plus once at start and end
+@FunctionalInterface
+public interface ProgressListener {
+
+    void onProgress(ProgressEvent event);
+}
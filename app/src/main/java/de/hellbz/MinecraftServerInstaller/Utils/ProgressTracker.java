@@ -0,0 +1,94 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Turns the byte counts of a read loop into rate-limited ProgressEvents, the loop itself only compares two longs
+public class ProgressTracker {
+
+    private static final Logger logger = LoggerUtility.getLogger(ProgressTracker.class);
+
+    // Listeners that receive the events of every download, for example a JsonProgressSink
+    private static final List<ProgressListener> globalListeners = new CopyOnWriteArrayList<>();
+
+    private final String source;
+    private final String fileName;
+    private final List<ProgressListener> listeners;
+    private final long minIntervalNanos;
+    private long startNanos;
+    private long nextEventNanos;
+    private long bytesTotal = -1;
+
+    // Constructor
+    ProgressTracker(String source, String fileName, List<ProgressListener> listeners) {
+        this.source = source;
+        this.fileName = fileName;
+        this.listeners = listeners;
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, Config.progressUpdatesPerSecond);
+    }
+
+    // Method to create a tracker for a download, null if nobody listens
+    static ProgressTracker create(String source, String fileName, List<ProgressListener> listeners) {
+        if (listeners.isEmpty() && globalListeners.isEmpty()) {
+            return null;
+        }
+        List<ProgressListener> all = new ArrayList<>(listeners);
+        all.addAll(globalListeners);
+        return new ProgressTracker(source, fileName, all);
+    }
+
+    // Method to register a listener for all downloads of the process
+    public static void addGlobalListener(ProgressListener listener) {
+        globalListeners.add(listener);
+    }
+
+    // Method to remove a global listener again
+    public static void removeGlobalListener(ProgressListener listener) {
+        globalListeners.remove(listener);
+    }
+
+    // Method to announce the download, bytesDone is larger than 0 for resumed downloads
+    public void start(long bytesDone, long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+        this.startNanos = System.nanoTime();
+        this.nextEventNanos = startNanos + minIntervalNanos;
+        emit(ProgressEvent.Type.STARTED, bytesDone);
+    }
+
+    // Method called from the read loop, emits an event only if the interval has passed
+    public void update(long bytesDone) {
+        long now = System.nanoTime();
+        if (now - nextEventNanos < 0) {
+            return;
+        }
+        nextEventNanos = now + minIntervalNanos;
+        emit(ProgressEvent.Type.PROGRESS, bytesDone);
+    }
+
+    // Method to announce the end of a successful download
+    public void finish(long bytesDone) {
+        emit(ProgressEvent.Type.FINISHED, bytesDone);
+    }
+
+    // Method to announce a failed or aborted download
+    public void fail(long bytesDone) {
+        emit(ProgressEvent.Type.FAILED, bytesDone);
+    }
+
+    // Helper method to hand the event to all listeners, a broken listener must not break the download
+    private void emit(ProgressEvent.Type type, long bytesDone) {
+        ProgressEvent event = new ProgressEvent(type, source, fileName, bytesDone, bytesTotal, System.nanoTime() - startNanos);
+        for (ProgressListener listener : listeners) {
+            try {
+                listener.onProgress(event);
+            } catch (RuntimeException e) {
+                logger.warning("Progress listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Timings and byte counts of one fetch() or fetchBinary() call, collected by DownloadMetrics when the call ends.
+// Hedged requests of a fetch run on other threads, so all counters may be updated concurrently.
+public class RequestMetrics {
+
+    // Where the content came from
+    public enum Outcome {
+        NETWORK,      // Full download
+        RESUMED,      // Download continued from a .part file
+        REVALIDATED,  // Cached copy confirmed by the server (304)
+        CACHE,        // Fresh copy from the temp cache, no request
+        MEMORY,       // Memoized document of this run, no request
+        STORE,        // Artifact store hit, no request
+        MISMATCH,     // Downloaded, but the content did not match the expected hash
+        FAILED
+    }
+
+    private final String url;
+    private final boolean binary;
+    private final long startTime = System.nanoTime();
+    private volatile String host;  // Host that answered, differs from the URL's host if a mirror was used
+    private volatile long dnsNanos = -1;
+    private volatile long connectNanos = -1;  // TCP connect and TLS handshake, about 0 for a kept-alive connection
+    private volatile long timeToFirstByteNanos = -1;
+    private volatile long durationNanos = -1;
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile Outcome outcome;
+    private volatile int responseCode;
+
+    RequestMetrics(String url, boolean binary) {
+        this.url = url;
+        this.binary = binary;
+        this.host = hostOf(url);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getDnsNanos() {
+        return dnsNanos;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    // Method to get the number of additional attempts (failover to a mirror or retry)
+    public int getRetries() {
+        return Math.max(0, attempts.get() - 1);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    // Method to get the bytes per second of the body transfer, -1 if nothing was transferred
+    public long getBytesPerSecond() {
+        long transferNanos = durationNanos - Math.max(0, timeToFirstByteNanos);
+        long bytes = bytesTransferred.get();
+        return bytes > 0 && transferNanos > 0 ? (long) (bytes * 1_000_000_000.0 / transferNanos) : -1;
+    }
+
+    // Method to count one attempt against a source URL
+    void attempt(String requestUrl) {
+        attempts.incrementAndGet();
+        host = hostOf(requestUrl);
+    }
+
+    // Method to record the connection setup, called by HttpConnectionPool
+    void connected(long dnsNanos, long connectNanos) {
+        this.dnsNanos = dnsNanos;
+        this.connectNanos = connectNanos;
+    }
+
+    void timeToFirstByte(long nanos) {
+        this.timeToFirstByteNanos = nanos;
+    }
+
+    void addBytesTransferred(long bytes) {
+        bytesTransferred.addAndGet(bytes);
+    }
+
+    // Method to count bytes that did not have to be downloaded (cache hits, resumed parts, compression)
+    void addBytesSaved(long bytes) {
+        if (bytes > 0) {
+            bytesSaved.addAndGet(bytes);
+        }
+    }
+
+    void outcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    // Method to close the record, called once at the end of the fetch
+    void finish(int responseCode) {
+        this.responseCode = responseCode;
+        this.durationNanos = System.nanoTime() - startTime;
+        boolean success = (responseCode >= 200 && responseCode < 300) || responseCode == 304;
+        if (!success && outcome != Outcome.MISMATCH) {
+            outcome = Outcome.FAILED;
+        } else if (outcome == null) {
+            outcome = Outcome.NETWORK;
+        }
+    }
+
+    // Method to wrap a response body, the bytes read from the network are counted
+    InputStream count(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int value = super.read();
+                if (value != -1) {
+                    bytesTransferred.incrementAndGet();
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesTransferred.addAndGet(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    // Helper method to get the host of a URL, null for local files
+    private static String hostOf(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Exponential backoff with jitter for failed HTTP requests (httpRetries, retryBaseDelay, retryMaxDelay)
+public class RetryPolicy {
+
+    // Method to check if a response code is worth another attempt (timeouts, throttling and server errors)
+    public static boolean isRetryable(int responseCode) {
+        return responseCode == 408 || responseCode == 429 || responseCode >= 500;
+    }
+
+    // Method to get the delay before the given retry (0 = first retry): base * 2^retry, capped, with "equal jitter"
+    public static long backoffMillis(int retry) {
+        long cap = Math.min(Config.retryMaxDelay, Config.retryBaseDelay << Math.min(retry, 20));
+        // Half of the delay is fixed, the other half random, so parallel installs do not retry in lockstep
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    // Method to wait before the next attempt
+    public static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the next attempt.");
+        }
+    }
+}
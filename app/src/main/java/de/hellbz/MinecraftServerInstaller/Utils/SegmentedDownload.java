@@ -0,0 +1,278 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Downloads a file in parallel HTTP Range segments into a preallocated file.
+// The ranges still missing can be recorded, so an interrupted download only fetches those again.
+public class SegmentedDownload {
+
+    private static final Logger logger = LoggerUtility.getLogger(SegmentedDownload.class);
+
+    // Shared worker threads for all segments, the per-host limit is enforced by HostLimiter
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "msi-download-segment");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final URL url;
+    private final Map<String, String> headers;
+    private final Path target;
+    private final long contentLength;
+    private final String validator;  // Strong ETag or Last-Modified of the probe, sent as If-Range by every segment
+    private final List<long[]> ranges;  // {start, end} of every segment, end inclusive
+    private final AtomicLong[] positions;  // Next byte to write per segment, only advanced after the write
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    // Result of the range probe
+    public static class Probe {
+        public final URL url;  // Final URL after redirects
+        public final long contentLength;
+        public final boolean acceptsRanges;
+        public final String validator;  // null if the server sends neither a strong ETag nor Last-Modified
+
+        Probe(URL url, long contentLength, boolean acceptsRanges, String validator) {
+            this.url = url;
+            this.contentLength = contentLength;
+            this.acceptsRanges = acceptsRanges;
+            this.validator = validator;
+        }
+
+        // Method to check if a segmented download is possible and worth it.
+        // Without a validator the segments cannot be pinned to one version of the file.
+        public boolean isSegmentable(int segments, long segmentMinSize) {
+            return acceptsRanges && validator != null && segments > 1 && contentLength >= 2 * segmentMinSize;
+        }
+    }
+
+    // Constructor
+    public SegmentedDownload(URL url, Map<String, String> headers, Path target, long contentLength, String validator, int segments) {
+        this(url, headers, target, contentLength, validator, split(Collections.singletonList(new long[]{0, contentLength - 1}), segments));
+    }
+
+    // Constructor for the given ranges only, the rest of the target file is kept as it is (used to resume)
+    public SegmentedDownload(URL url, Map<String, String> headers, Path target, long contentLength, String validator, List<long[]> ranges) {
+        this.url = url;
+        this.headers = headers;
+        this.target = target;
+        this.contentLength = contentLength;
+        this.validator = validator;
+        this.ranges = ranges;
+        this.positions = new AtomicLong[ranges.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new AtomicLong(ranges.get(i)[0]);
+        }
+    }
+
+    // Method to probe Accept-Ranges, Content-Length and the validator with a HEAD request
+    public static Probe probe(URL url, Map<String, String> headers) throws IOException {
+        HttpURLConnection connection = null;
+        try {
+            connection = HttpConnectionPool.open(url, "HEAD", headers);
+            HttpConnectionPool.connect(connection);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode < 200 || responseCode >= 300) {
+                return new Probe(url, -1, false, null);
+            }
+            boolean acceptsRanges = "bytes".equalsIgnoreCase(connection.getHeaderField("Accept-Ranges"));
+            // Weak ETags are not allowed in If-Range
+            String etag = connection.getHeaderField("ETag");
+            String validator = etag != null && !etag.startsWith("W/") ? etag : connection.getHeaderField("Last-Modified");
+            return new Probe(connection.getURL(), connection.getContentLengthLong(), acceptsRanges, validator);
+        } finally {
+            HttpConnectionPool.release(connection);
+        }
+    }
+
+    // Method to preallocate the target file and start all segments
+    public SegmentedDownload start() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(contentLength);
+        }
+
+        for (int i = 0; i < ranges.size(); i++) {
+            final int segment = i;
+            futures.add(executor.submit(() -> {
+                downloadSegment(segment);
+                return null;
+            }));
+        }
+        logger.fine("Downloading " + futures.size() + " segments of " + url);
+        return this;
+    }
+
+    // Method to wait for all segments, returns false if they are still running after the timeout
+    public boolean awaitCompletion(long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            for (Future<?> future : futures) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 && !future.isDone()) {
+                    return false;
+                }
+                future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new IOException("Segmented download interrupted.", e);
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    // Method to cancel all running segments
+    public void cancel() {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    // Getter for the number of bytes received so far across all segments
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    // Method to get the ranges not written yet, also valid after a failure or cancel()
+    public List<long[]> getMissingRanges() {
+        List<long[]> missing = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            long next = positions[i].get();
+            long end = ranges.get(i)[1];
+            if (next <= end) {
+                missing.add(new long[]{next, end});
+            }
+        }
+        return missing;
+    }
+
+    // Method to cut ranges into segments, each range gets a share of the segments by its size
+    public static List<long[]> split(List<long[]> ranges, int segments) {
+        long total = size(ranges);
+        List<long[]> result = new ArrayList<>();
+        for (long[] range : ranges) {
+            long rangeSize = range[1] - range[0] + 1;
+            long pieces = Math.max(1, Math.min(rangeSize, Math.round((double) rangeSize * segments / total)));
+            long pieceSize = (rangeSize + pieces - 1) / pieces;
+            for (long start = range[0]; start <= range[1]; start += pieceSize) {
+                result.add(new long[]{start, Math.min(range[1], start + pieceSize - 1)});
+            }
+        }
+        return result;
+    }
+
+    // Method to count the bytes of a list of ranges
+    public static long size(List<long[]> ranges) {
+        long size = 0;
+        for (long[] range : ranges) {
+            size += range[1] - range[0] + 1;
+        }
+        return size;
+    }
+
+    // Method to write ranges as "start-end,start-end" (the format of the .part sidecar)
+    public static String formatRanges(List<long[]> ranges) {
+        StringBuilder text = new StringBuilder();
+        for (long[] range : ranges) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(range[0]).append('-').append(range[1]);
+        }
+        return text.toString();
+    }
+
+    // Method to read ranges written by formatRanges(), throws NumberFormatException for anything else
+    public static List<long[]> parseRanges(String text) {
+        List<long[]> ranges = new ArrayList<>();
+        for (String range : text.split(",")) {
+            if (range.trim().isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                throw new NumberFormatException("Invalid range: " + range);
+            }
+            long start = Long.parseLong(range.substring(0, dash).trim());
+            long end = Long.parseLong(range.substring(dash + 1).trim());
+            if (start < 0 || end < start) {
+                throw new NumberFormatException("Invalid range: " + range);
+            }
+            ranges.add(new long[]{start, end});
+        }
+        return ranges;
+    }
+
+    // Helper method to fetch one byte range and write it with positional FileChannel writes
+    private void downloadSegment(int segment) throws IOException {
+        long start = positions[segment].get();
+        long end = ranges.get(segment)[1];
+        HttpURLConnection connection = null;
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw");
+             FileChannel channel = file.getChannel()) {
+            connection = HttpConnectionPool.open(url, "GET", headers);
+            connection.setRequestProperty("Range", "bytes=" + start + "-" + end);
+            // The range is only sent if the file is still the probed version, otherwise the server answers 200
+            connection.setRequestProperty("If-Range", validator);
+            HttpConnectionPool.connect(connection);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_OK) {
+                throw new IOException(url + " changed during the segmented download (HTTP 200 instead of 206)");
+            }
+            if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("Server ignored range request for " + url + " (HTTP " + responseCode + ")");
+            }
+
+            long position = start;
+            try (InputStream in = connection.getInputStream()) {
+                byte[] buffer = new byte[65536];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("Segment download cancelled.");
+                    }
+                    BandwidthLimiter.acquire(url.getHost(), read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        position += channel.write(chunk, position);
+                    }
+                    positions[segment].set(position);
+                    bytesRead.addAndGet(read);
+                }
+            }
+
+            if (position != end + 1) {
+                throw new IOException("Segment " + start + "-" + end + " of " + url + " ended after " + (position - start) + " bytes.");
+            }
+        } finally {
+            HttpConnectionPool.release(connection);
+        }
+    }
+}
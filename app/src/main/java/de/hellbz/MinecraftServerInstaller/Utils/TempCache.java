@@ -0,0 +1,396 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Managed cache for the files in msi_data/temp: one index file with size, last access, hits and validators per entry,
+// a size budget (tempCacheSize) and LRU or LFU eviction (tempCachePolicy).
+// Cache files elsewhere (FileOperation.cache() with another path) are indexed for revalidation, but never evicted.
+public class TempCache {
+
+    private static final Logger logger = LoggerUtility.getLogger(TempCache.class);
+
+    private static final String INDEX_FILE = "cache-index.tsv";
+    private static final String INDEX_HEADER = "#key\tsize\tlastAccess\thits\tstoredAt\tmaxAge\tetag\tlastModified\turl";
+    private static final long STALE_DOWNLOAD_AGE = TimeUnit.HOURS.toMillis(24);  // Leftovers of crashed downloads
+
+    private static Map<String, Entry> entries;  // Loaded on first use
+    private static boolean dirty = false;
+    private static long hits = 0;
+    private static long misses = 0;
+    private static long evictions = 0;
+    private static long evictedBytes = 0;
+
+    // Index entry of one cached file
+    public static class Entry {
+        final String key;
+        long size;
+        long lastAccess;
+        long hits;
+        long storedAt;
+        long maxAge;
+        String etag;
+        String lastModified;
+        String url;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        public long getStoredAt() {
+            return storedAt;
+        }
+
+        public long getMaxAge() {
+            return maxAge;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        // Method to check if the file may be used without asking the server
+        public boolean isFresh() {
+            return System.currentTimeMillis() - storedAt < maxAge;
+        }
+    }
+
+    // Method to get the index entry of a cached file, null if the file is not in the cache
+    public static synchronized Entry lookup(Path file) {
+        load();
+        String key = keyOf(file);
+        Entry entry = key != null ? entries.get(key) : null;
+        if (entry != null && !Files.isRegularFile(file)) {
+            entries.remove(entry.key);
+            dirty = true;
+            return null;
+        }
+        return entry;
+    }
+
+    // Method to count a use of the cached file (fresh or revalidated)
+    public static synchronized void recordHit(Path file) {
+        load();
+        hits++;
+        String key = keyOf(file);
+        Entry entry = key != null ? entries.get(key) : null;
+        if (entry != null) {
+            entry.lastAccess = System.currentTimeMillis();
+            entry.hits++;
+            dirty = true;
+        }
+    }
+
+    // Method to count a request that could not be served from the cache
+    public static synchronized void recordMiss() {
+        misses++;
+    }
+
+    // Method to add or update a cached file, enforces the size budget and writes the index
+    public static synchronized void store(Path file, String url, long maxAge, String etag, String lastModified) {
+        load();
+        String key = keyOf(file);
+        if (key == null) {
+            return;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key);
+            entries.put(key, entry);
+        }
+        try {
+            entry.size = Files.size(file);
+        } catch (IOException e) {
+            entry.size = 0;
+        }
+        long now = System.currentTimeMillis();
+        entry.lastAccess = now;
+        entry.storedAt = now;
+        entry.maxAge = maxAge;
+        entry.url = url;
+        entry.etag = etag;
+        entry.lastModified = lastModified;
+        dirty = true;
+
+        evict(key);
+        save();
+    }
+
+    // Method to get the hit/miss statistics of this run
+    public static synchronized String getStats() {
+        load();
+        long total = hits + misses;
+        long size = getManagedSize();
+        return "hits: " + hits + ", misses: " + misses
+                + (total > 0 ? " (" + (hits * 100 / total) + "% hit rate)" : "")
+                + ", evicted: " + evictions + " (" + ProgressEvent.formatSize(evictedBytes) + ")"
+                + ", entries: " + entries.size() + ", size: " + ProgressEvent.formatSize(size)
+                + " of " + ProgressEvent.formatSize(Config.tempCacheSize);
+    }
+
+    // Method to log the statistics and write pending index updates
+    public static synchronized void logStats() {
+        logger.info("Temp cache " + getStats());
+        save();
+    }
+
+    // Helper method to get the size of the files in the temp folder, the files elsewhere do not count against the budget
+    private static long getManagedSize() {
+        long size = 0;
+        for (Entry entry : entries.values()) {
+            if (!isExternal(entry.key)) {
+                size += entry.size;
+            }
+        }
+        return size;
+    }
+
+    // Helper method to remove entries until the budget is met, the entry just stored is kept.
+    // Only files in the temp folder are evicted, the eviction must never delete anything outside of it.
+    private static void evict(String keep) {
+        long size = getManagedSize();
+        if (size <= Config.tempCacheSize) {
+            return;
+        }
+
+        List<Entry> candidates = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (!isExternal(entry.key)) {
+                candidates.add(entry);
+            }
+        }
+        Comparator<Entry> byLastAccess = Comparator.comparingLong(entry -> entry.lastAccess);
+        candidates.sort("LFU".equalsIgnoreCase(Config.tempCachePolicy)
+                ? Comparator.<Entry>comparingLong(entry -> entry.hits).thenComparing(byLastAccess)
+                : byLastAccess);
+
+        for (Entry entry : candidates) {
+            if (size <= Config.tempCacheSize) {
+                break;
+            }
+            if (entry.key.equals(keep)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(resolve(entry.key));
+            } catch (IOException e) {
+                logger.warning("Could not evict " + entry.key + ": " + e.getMessage());
+                continue;
+            }
+            entries.remove(entry.key);
+            size -= entry.size;
+            evictions++;
+            evictedBytes += entry.size;
+            logger.fine("Evicted from temp cache: " + entry.key + " (" + ProgressEvent.formatSize(entry.size) + ")");
+        }
+    }
+
+    // Helper method to read the index, adopt untracked files and remove leftovers of crashed downloads
+    private static void load() {
+        if (entries != null) {
+            return;
+        }
+        entries = new LinkedHashMap<>();
+        Path indexFile = Config.tempFolder.resolve(INDEX_FILE);
+        if (Files.exists(indexFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = parseLine(line);
+                    // Keys that do not lead back to their file (e.g. relative keys escaping the temp folder) are dropped
+                    try {
+                        if (entry != null && entry.key.equals(keyOf(resolve(entry.key))) && Files.isRegularFile(resolve(entry.key))) {
+                            entries.put(entry.key, entry);
+                        }
+                    } catch (InvalidPathException e) {
+                        dirty = true;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warning("Temp cache index unreadable, rebuilding it: " + e.getMessage());
+                entries.clear();
+            }
+        }
+        scanTempFolder();
+        save();
+
+        // Pending updates (last access, hits) are written once when the installer exits
+        Runtime.getRuntime().addShutdownHook(new Thread(TempCache::flush, "msi-temp-cache"));
+    }
+
+    // Helper method for the shutdown hook
+    private static synchronized void flush() {
+        save();
+    }
+
+    // Helper method to add files that were written without the index and to delete stale download files
+    private static void scanTempFolder() {
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Config.tempFolder)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!Files.isRegularFile(file) || name.equals(INDEX_FILE)) {
+                    continue;
+                }
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (name.endsWith(".tmp")) {
+                    if (now - modified > STALE_DOWNLOAD_AGE) {
+                        Files.deleteIfExists(file);
+                        logger.fine("Deleted stale download: " + name);
+                    }
+                    continue;
+                }
+                if (name.endsWith(".properties") && Files.exists(file.resolveSibling(name.substring(0, name.length() - 11)))) {
+                    continue;  // Old cache sidecar, imported together with its file
+                }
+                String key = keyOf(file);
+                if (key != null && !entries.containsKey(key)) {
+                    Entry entry = new Entry(key);
+                    entry.size = Files.size(file);
+                    entry.lastAccess = modified;
+                    entry.storedAt = modified;
+                    importSidecar(file, entry);
+                    entries.put(key, entry);
+                    dirty = true;
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Could not scan the temp folder: " + e.getMessage());
+        }
+    }
+
+    // Helper method to take over the validators of the "<file>.properties" sidecars written by earlier versions
+    private static void importSidecar(Path file, Entry entry) throws IOException {
+        Path sidecar = file.resolveSibling(file.getFileName() + ".properties");
+        if (!Files.exists(sidecar)) {
+            return;
+        }
+        Properties cacheInfo = new Properties();
+        try (InputStream in = Files.newInputStream(sidecar)) {
+            cacheInfo.load(in);
+        }
+        entry.url = cacheInfo.getProperty("url");
+        entry.etag = cacheInfo.getProperty("etag");
+        entry.lastModified = cacheInfo.getProperty("lastModified");
+        try {
+            entry.storedAt = Long.parseLong(cacheInfo.getProperty("storedAt", String.valueOf(entry.storedAt)));
+            entry.maxAge = Long.parseLong(cacheInfo.getProperty("maxAge", "0"));
+        } catch (NumberFormatException e) {
+            entry.maxAge = 0;
+        }
+        Files.deleteIfExists(sidecar);
+    }
+
+    // Helper method to write the index atomically if it changed
+    private static void save() {
+        if (!dirty || entries == null) {
+            return;
+        }
+        Path indexFile = Config.tempFolder.resolve(INDEX_FILE);
+        try {
+            Path temp = FileOperation.createSiblingTemp(indexFile);
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(INDEX_HEADER);
+                    writer.newLine();
+                    for (Entry entry : entries.values()) {
+                        writer.write(formatLine(entry));
+                        writer.newLine();
+                    }
+                }
+                FileOperation.replaceAtomically(temp, indexFile);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            logger.warning("Could not write the temp cache index: " + e.getMessage());
+        }
+    }
+
+    // Helper method to write one entry as a tab separated line
+    private static String formatLine(Entry entry) {
+        return entry.key + "\t" + entry.size + "\t" + entry.lastAccess + "\t" + entry.hits + "\t" + entry.storedAt + "\t"
+                + entry.maxAge + "\t" + field(entry.etag) + "\t" + field(entry.lastModified) + "\t" + field(entry.url);
+    }
+
+    // Helper method to read one line of the index, null for comments and broken lines
+    private static Entry parseLine(String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 9) {
+            return null;
+        }
+        try {
+            Entry entry = new Entry(fields[0]);
+            entry.size = Long.parseLong(fields[1]);
+            entry.lastAccess = Long.parseLong(fields[2]);
+            entry.hits = Long.parseLong(fields[3]);
+            entry.storedAt = Long.parseLong(fields[4]);
+            entry.maxAge = Long.parseLong(fields[5]);
+            entry.etag = fields[6].isEmpty() ? null : fields[6];
+            entry.lastModified = fields[7].isEmpty() ? null : fields[7];
+            entry.url = fields[8].isEmpty() ? null : fields[8];
+            return entry;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Helper method to keep a value on one line of the index
+    private static String field(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    // Helper method to get the index key of a file: its path relative to the temp folder,
+    // or the absolute path for cache files elsewhere
+    private static String keyOf(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path tempFolder = Config.tempFolder.toAbsolutePath().normalize();
+        if (absolute.equals(tempFolder)) {
+            return null;
+        }
+        if (!absolute.startsWith(tempFolder)) {
+            return absolute.toString();
+        }
+        return tempFolder.relativize(absolute).toString().replace('\\', '/');
+    }
+
+    // Helper method to check if an index key belongs to a file outside the temp folder
+    private static boolean isExternal(String key) {
+        return Paths.get(key).isAbsolute();
+    }
+
+    // Helper method to get the file of an index key
+    private static Path resolve(String key) {
+        return isExternal(key) ? Paths.get(key) : Config.tempFolder.toAbsolutePath().normalize().resolve(key);
+    }
+}
@@ -0,0 +1,428 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Compact, array-backed index of the version manifest (id, type, url, sha1, release time per version).
+// Streamed from the manifest text without a DOM, shared by the version list and the install lookup.
+// Versions keep the manifest order, newest first. The index can be stored in a binary file (read memory-mapped)
+// that is tied to the manifest by its validator, so a cold start does not parse the manifest again.
+public class VersionIndex {
+
+    private static final int FILE_MAGIC = 0x4D535649;  // "MSVI"
+    private static final int FILE_FORMAT = 1;
+
+    private final String[] ids;
+    private final byte[] types;  // Index into typeNames, the manifest only knows a handful of types
+    private final String[] typeNames;
+    private final String[] urls;
+    private final String[] sha1s;  // null if the manifest has no hashes (version_manifest.json v1)
+    private final long[] releaseTimes;  // Epoch milliseconds
+    private final String latestRelease;
+    private final String latestSnapshot;
+
+    private final int[] sortedById;  // Indexes ordered by id, for the binary search in indexOf()
+    private final int[][] positionsByType;  // Indexes of each type in manifest order
+
+    VersionIndex(String[] ids, byte[] types, String[] typeNames, String[] urls, String[] sha1s, long[] releaseTimes,
+                 String latestRelease, String latestSnapshot) {
+        this(ids, types, typeNames, urls, sha1s, releaseTimes, latestRelease, latestSnapshot,
+                sortById(ids), groupByType(types, typeNames.length));
+    }
+
+    // Constructor for an index read from disk, the derived arrays were stored with it
+    private VersionIndex(String[] ids, byte[] types, String[] typeNames, String[] urls, String[] sha1s, long[] releaseTimes,
+                         String latestRelease, String latestSnapshot, int[] sortedById, int[][] positionsByType) {
+        this.ids = ids;
+        this.types = types;
+        this.typeNames = typeNames;
+        this.urls = urls;
+        this.sha1s = sha1s;
+        this.releaseTimes = releaseTimes;
+        this.latestRelease = latestRelease;
+        this.latestSnapshot = latestSnapshot;
+        this.sortedById = sortedById;
+        this.positionsByType = positionsByType;
+    }
+
+    // Helper method to order the indexes by id
+    private static int[] sortById(String[] ids) {
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> ids[a].compareTo(ids[b]));
+        int[] sorted = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            sorted[i] = order[i];
+        }
+        return sorted;
+    }
+
+    // Helper method to collect the indexes of each type
+    private static int[][] groupByType(byte[] types, int typeCount) {
+        int[] counts = new int[typeCount];
+        for (byte type : types) {
+            counts[type]++;
+        }
+        int[][] positionsByType = new int[typeCount][];
+        for (int type = 0; type < typeCount; type++) {
+            positionsByType[type] = new int[counts[type]];
+            counts[type] = 0;
+        }
+        for (int i = 0; i < types.length; i++) {
+            positionsByType[types[i]][counts[types[i]]++] = i;
+        }
+        return positionsByType;
+    }
+
+    // Method to parse a manifest for FileOperation.getParsed(), which does not allow checked exceptions
+    public static VersionIndex parse(String manifest) {
+        try {
+            return parse(new StringReader(manifest));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid version manifest: " + e.getMessage(), e);
+        }
+    }
+
+    // Method to stream a manifest into an index, unknown fields are skipped
+    public static VersionIndex parse(Reader manifest) throws IOException {
+        List<String> ids = new ArrayList<>();
+        List<String> typeNames = new ArrayList<>();
+        byte[] types = new byte[1024];
+        List<String> urls = new ArrayList<>();
+        List<String> sha1s = new ArrayList<>();
+        long[] releaseTimes = new long[1024];
+        String latestRelease = null;
+        String latestSnapshot = null;
+
+        JsonStreamReader reader = new JsonStreamReader(manifest);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("latest")) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String kind = reader.nextName();
+                    if (kind.equals("release")) {
+                        latestRelease = reader.nextStringOrNull();
+                    } else if (kind.equals("snapshot")) {
+                        latestSnapshot = reader.nextStringOrNull();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if (name.equals("versions")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String id = null;
+                    String type = null;
+                    String url = null;
+                    String sha1 = null;
+                    long releaseTime = 0;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "id":
+                                id = reader.nextString();
+                                break;
+                            case "type":
+                                type = reader.nextString();
+                                break;
+                            case "url":
+                                url = reader.nextString();
+                                break;
+                            case "sha1":
+                                sha1 = reader.nextStringOrNull();
+                                break;
+                            case "releaseTime":
+                                releaseTime = parseTime(reader.nextString());
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    if (id == null || url == null) {
+                        continue;  // Not usable without id and url
+                    }
+
+                    int count = ids.size();
+                    if (count == types.length) {
+                        types = Arrays.copyOf(types, count * 2);
+                        releaseTimes = Arrays.copyOf(releaseTimes, count * 2);
+                    }
+                    String typeName = type != null ? type : "unknown";
+                    int typeIndex = typeNames.indexOf(typeName);
+                    if (typeIndex < 0) {
+                        if (typeNames.size() == Byte.MAX_VALUE) {
+                            throw new IOException("Too many version types in the manifest");
+                        }
+                        typeIndex = typeNames.size();
+                        typeNames.add(typeName);
+                    }
+                    ids.add(id);
+                    types[count] = (byte) typeIndex;
+                    urls.add(url);
+                    sha1s.add(sha1);
+                    releaseTimes[count] = releaseTime;
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        int count = ids.size();
+        return new VersionIndex(ids.toArray(new String[0]), Arrays.copyOf(types, count), typeNames.toArray(new String[0]),
+                urls.toArray(new String[0]), sha1s.toArray(new String[0]), Arrays.copyOf(releaseTimes, count),
+                latestRelease, latestSnapshot);
+    }
+
+    // Method to get the number of versions
+    public int size() {
+        return ids.length;
+    }
+
+    // Method to find a version by its id (binary search), -1 if the manifest does not contain it
+    public int indexOf(String id) {
+        int low = 0;
+        int high = sortedById.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = ids[sortedById[middle]].compareTo(id);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return sortedById[middle];
+            }
+        }
+        return -1;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    public String getType(int index) {
+        return typeNames[types[index]];
+    }
+
+    public String getUrl(int index) {
+        return urls[index];
+    }
+
+    // Method to get the sha1 of the version JSON, null if the manifest has none
+    public String getSha1(int index) {
+        return sha1s[index];
+    }
+
+    // Method to get the release time in epoch milliseconds
+    public long getReleaseTime(int index) {
+        return releaseTimes[index];
+    }
+
+    public String getLatestRelease() {
+        return latestRelease;
+    }
+
+    public String getLatestSnapshot() {
+        return latestSnapshot;
+    }
+
+    // Method to get the ids of one type ("release", "snapshot", ...) in manifest order, "all" returns every id
+    public String[] getIds(String type) {
+        if (type == null || type.equalsIgnoreCase("all")) {
+            return ids.clone();
+        }
+        for (int typeIndex = 0; typeIndex < typeNames.length; typeIndex++) {
+            if (typeNames[typeIndex].equalsIgnoreCase(type)) {
+                int[] positionsOfType = positionsByType[typeIndex];
+                String[] result = new String[positionsOfType.length];
+                for (int i = 0; i < positionsOfType.length; i++) {
+                    result[i] = ids[positionsOfType[i]];
+                }
+                return result;
+            }
+        }
+        return new String[0];
+    }
+
+    // Method to load the index stored for a manifest, null if there is none or it belongs to another manifest version
+    public static VersionIndex read(Path file, String validator) {
+        if (validator == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_FORMAT || !validator.equals(readString(buffer))) {
+                return null;  // Older format or a different manifest
+            }
+            int count = buffer.getInt();
+            String latestRelease = readString(buffer);
+            String latestSnapshot = readString(buffer);
+
+            String[] typeNames = new String[buffer.getInt()];
+            int[][] positionsByType = new int[typeNames.length][];
+            for (int type = 0; type < typeNames.length; type++) {
+                typeNames[type] = readString(buffer);
+                positionsByType[type] = readInts(buffer, buffer.getInt());
+            }
+            int[] sortedById = readInts(buffer, count);
+
+            byte[] types = new byte[count];
+            buffer.get(types);
+            long[] releaseTimes = new long[count];
+            buffer.asLongBuffer().get(releaseTimes);
+            buffer.position(buffer.position() + count * 8);
+
+            String[] ids = new String[count];
+            String[] urls = new String[count];
+            String[] sha1s = new String[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = readString(buffer);
+                urls[i] = readString(buffer);
+                sha1s[i] = readString(buffer);
+            }
+            return new VersionIndex(ids, types, typeNames, urls, sha1s, releaseTimes, latestRelease, latestSnapshot,
+                    sortedById, positionsByType);
+        } catch (IOException | RuntimeException e) {
+            return null;  // Damaged file, the manifest is parsed again
+        }
+    }
+
+    // Method to store the index together with the validator (ETag) of its manifest, replaces the file atomically
+    public void write(Path file, String validator) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * ids.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_FORMAT);
+        writeString(out, validator);
+        out.writeInt(ids.length);
+        writeString(out, latestRelease);
+        writeString(out, latestSnapshot);
+
+        out.writeInt(typeNames.length);
+        for (int type = 0; type < typeNames.length; type++) {
+            writeString(out, typeNames[type]);
+            out.writeInt(positionsByType[type].length);
+            for (int position : positionsByType[type]) {
+                out.writeInt(position);
+            }
+        }
+        for (int position : sortedById) {
+            out.writeInt(position);
+        }
+
+        out.write(types);
+        for (long releaseTime : releaseTimes) {
+            out.writeLong(releaseTime);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            writeString(out, ids[i]);
+            writeString(out, urls[i]);
+            writeString(out, sha1s[i]);
+        }
+        out.flush();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Helper method to write a string as length and UTF-8 bytes, -1 for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    // Helper method to read an ISO-8601 timestamp like "2024-06-13T08:24:03+00:00".
+    // The manifest always uses this layout, the DateTimeFormatter is only the fallback because it dominates a cold parse.
+    private static long parseTime(String time) {
+        if (time.length() == 25 && time.charAt(4) == '-' && time.charAt(7) == '-' && time.charAt(10) == 'T'
+                && time.charAt(13) == ':' && time.charAt(16) == ':' && time.charAt(22) == ':'
+                && (time.charAt(19) == '+' || time.charAt(19) == '-')) {
+            try {
+                long days = LocalDate.of(digits(time, 0, 4), digits(time, 5, 2), digits(time, 8, 2)).toEpochDay();
+                long seconds = days * 86400 + digits(time, 11, 2) * 3600 + digits(time, 14, 2) * 60 + digits(time, 17, 2);
+                long offset = digits(time, 20, 2) * 3600 + digits(time, 23, 2) * 60;
+                return (time.charAt(19) == '+' ? seconds - offset : seconds + offset) * 1000;
+            } catch (NumberFormatException | DateTimeException e) {
+                // Not the expected layout after all
+            }
+        }
+        try {
+            return OffsetDateTime.parse(time).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    // Helper method to read a fixed number of decimal digits
+    private static int digits(String text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
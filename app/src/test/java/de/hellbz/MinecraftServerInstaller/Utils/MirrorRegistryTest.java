@@ -0,0 +1,118 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import com.sun.net.httpserver.HttpServer;
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Mirrors are local stand-in servers, the origin host is never contacted
+class MirrorRegistryTest {
+
+    private static final String ORIGIN = "https://origin.invalid/mc/game/version_manifest.json";
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        Config.mirrorIncludeOrigin = false;
+        Config.mirrorFirstByteTimeout = 500;
+        Config.mirrors.clear();
+        MirrorRegistry.reset();
+        MemoCache.clear();  // Every test fetches the same URL
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+        Config.mirrors.clear();
+        MirrorRegistry.reset();
+    }
+
+    @Test
+    void testWithoutMirrorsOnlyTheUrlItself() {
+        assertEquals(Collections.singletonList(ORIGIN), MirrorRegistry.candidates(ORIGIN));
+    }
+
+    @Test
+    void testFastestMirrorIsRankedFirst() throws IOException {
+        String slow = startMirror(300, 0, 200, "slow");
+        String fast = startMirror(0, 0, 200, "fast");
+        Config.mirrors.put("origin.invalid", Arrays.asList(slow, fast + "/"));
+
+        List<String> candidates = MirrorRegistry.candidates(ORIGIN);
+
+        assertEquals(Arrays.asList(fast + "/mc/game/version_manifest.json", slow + "/mc/game/version_manifest.json"), candidates);
+    }
+
+    @Test
+    void testFailoverOnServerError() throws IOException {
+        String broken = startMirror(0, 0, 503, "broken");
+        String working = startMirror(50, 0, 200, "working");
+        Config.mirrors.put("origin.invalid", Arrays.asList(broken, working));
+
+        FileOperation result = FileOperation.getFile(ORIGIN).fetch();
+
+        assertEquals(200, result.getResponseCode());
+        assertEquals("working", result.getContent());
+        // The broken mirror is tried last from now on
+        assertTrue(MirrorRegistry.candidates(ORIGIN).get(0).startsWith(working));
+    }
+
+    @Test
+    void testFailoverOnSlowFirstByte() throws IOException {
+        String stalling = startMirror(0, 3000, 200, "stalling");
+        String working = startMirror(50, 0, 200, "working");
+        Config.mirrors.put("origin.invalid", Arrays.asList(stalling, working));
+
+        FileOperation result = FileOperation.getFile(ORIGIN).fetch();
+
+        assertEquals(200, result.getResponseCode());
+        assertEquals("working", result.getContent());
+    }
+
+    // Helper method to start a stand-in mirror with a delay for HEAD (latency probe) and GET requests
+    private String startMirror(long headDelayMillis, long getDelayMillis, int status, String body) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            sleep(head ? headDelayMillis : getDelayMillis);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            if (head) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.close();
+        });
+        server.setExecutor(executor);
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
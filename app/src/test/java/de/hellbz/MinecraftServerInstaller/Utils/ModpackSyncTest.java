@@ -0,0 +1,208 @@
+package de.hellbz.MinecraftServerInstaller.Utils;
+
+import com.sun.net.httpserver.HttpServer;
+import de.hellbz.MinecraftServerInstaller.Data.Config;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The mod downloads come from a local stand-in server, the files are synced into a temporary instance
+class ModpackSyncTest {
+
+    private final Map<String, byte[]> hosted = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private String baseUrl;
+    private Path work;
+    private Path root;
+    private Path objectsFolder;
+    private Path tempFolder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        work = Files.createTempDirectory("msi-modpack-test");
+        root = Files.createDirectories(work.resolve("instance"));
+        objectsFolder = Config.objectsFolder;
+        tempFolder = Config.tempFolder;
+        Config.objectsFolder = work.resolve("objects");  // Every test starts with an empty artifact store
+        Config.tempFolder = Files.createDirectories(work.resolve("temp"));
+        Config.mirrors.clear();
+        MemoCache.clear();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = hosted.get(exchange.getRequestURI().getPath());
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, "HEAD".equals(exchange.getRequestMethod()) ? -1 : body.length);
+                if (!"HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseBody().write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop(0);
+        Config.objectsFolder = objectsFolder;
+        Config.tempFolder = tempFolder;
+        try (Stream<Path> stream = Files.walk(work)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void testOnlyMissingAndChangedFilesAreDownloaded() throws IOException {
+        JSONArray files = new JSONArray()
+                .put(host("/a.jar", "mod a", "mods/a.jar"))
+                .put(host("/b.jar", "mod b", "mods/b.jar"));
+        Path manifest = writeManifest(files);
+
+        ModpackSync.Result first = ModpackSync.load(manifest.toString()).sync(root);
+        assertEquals(2, first.downloaded);
+        assertEquals("mod a", read("mods/a.jar"));
+        assertEquals("mod b", read("mods/b.jar"));
+
+        // Nothing changed: no request at all
+        requests.set(0);
+        ModpackSync.Result second = ModpackSync.load(manifest.toString()).sync(root);
+        assertEquals(0, second.downloaded);
+        assertEquals(2, second.unchanged);
+        assertEquals(0, requests.get());
+
+        // A damaged file is detected by its hash and fetched again
+        Files.write(root.resolve("mods/a.jar"), "broken".getBytes(StandardCharsets.UTF_8));
+        ModpackSync.Result repaired = ModpackSync.load(manifest.toString()).sync(root);
+        assertEquals(1, repaired.downloaded);
+        assertEquals("mod a", read("mods/a.jar"));
+    }
+
+    @Test
+    void testFilesNoLongerListedAreDeleted() throws IOException {
+        Path manifest = writeManifest(new JSONArray()
+                .put(host("/a.jar", "mod a", "mods/a.jar"))
+                .put(host("/b.jar", "mod b", "mods/b.jar")));
+        ModpackSync.load(manifest.toString()).sync(root);
+        Files.write(root.resolve("mods/own.jar"), "added by hand".getBytes(StandardCharsets.UTF_8));
+
+        // b.jar is replaced by c.jar in the next version of the pack
+        manifest = writeManifest(new JSONArray()
+                .put(host("/a.jar", "mod a", "mods/a.jar"))
+                .put(host("/c.jar", "mod c", "mods/c.jar")));
+        ModpackSync.Result result = ModpackSync.load(manifest.toString()).sync(root);
+
+        assertEquals(1, result.downloaded);
+        assertEquals(1, result.unchanged);
+        assertEquals(1, result.deleted);
+        assertFalse(Files.exists(root.resolve("mods/b.jar")));
+        assertEquals("mod c", read("mods/c.jar"));
+        assertTrue(Files.exists(root.resolve("mods/own.jar")), "Files the pack never placed must be kept");
+    }
+
+    @Test
+    void testMrpackWithOverrides() throws IOException {
+        JSONObject serverMod = host("/server.jar", "server mod", "mods/server.jar");
+        JSONObject clientMod = host("/client.jar", "client mod", "mods/client.jar");
+        clientMod.put("env", new JSONObject().put("client", "required").put("server", "unsupported"));
+        JSONObject index = new JSONObject()
+                .put("formatVersion", 1)
+                .put("game", "minecraft")
+                .put("files", new JSONArray().put(toModrinth(serverMod)).put(toModrinth(clientMod)));
+
+        Path pack = work.resolve("pack.mrpack");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(pack))) {
+            addEntry(zip, "modrinth.index.json", index.toString());
+            addEntry(zip, "overrides/config/mod.toml", "shared=true");
+            addEntry(zip, "server-overrides/config/mod.toml", "server=true");
+        }
+        hosted.put("/pack.mrpack", Files.readAllBytes(pack));
+
+        ModpackSync.Result result = ModpackSync.load(baseUrl + "/pack.mrpack").sync(root);
+
+        assertEquals(2, result.downloaded);
+        assertEquals("server mod", read("mods/server.jar"));
+        assertFalse(Files.exists(root.resolve("mods/client.jar")));
+        assertEquals("server=true", read("config/mod.toml"));
+
+        // An override edited in the instance is kept as long as the pack does not change it
+        Files.write(root.resolve("config/mod.toml"), "edited".getBytes(StandardCharsets.UTF_8));
+        ModpackSync.load(baseUrl + "/pack.mrpack").sync(root);
+        assertEquals("edited", read("config/mod.toml"));
+    }
+
+    @Test
+    void testPathsOutsideTheInstanceAreRejected() throws IOException {
+        JSONObject escape = host("/evil.jar", "evil", "../evil.jar");
+        Path manifest = writeManifest(new JSONArray().put(escape));
+
+        assertThrows(IOException.class, () -> ModpackSync.load(manifest.toString()));
+        assertEquals(0, requests.get());
+    }
+
+    // Helper method to serve a file on the stand-in server and describe it as manifest entry
+    private JSONObject host(String urlPath, String content, String path) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        hosted.put(urlPath, bytes);
+        return new JSONObject()
+                .put("url", baseUrl + urlPath)
+                .put("path", path)
+                .put("sha1", sha1(bytes));
+    }
+
+    // Helper method to convert a simple entry to the modrinth.index.json layout
+    private static JSONObject toModrinth(JSONObject entry) {
+        JSONObject file = new JSONObject()
+                .put("path", entry.getString("path"))
+                .put("hashes", new JSONObject().put("sha1", entry.getString("sha1")))
+                .put("downloads", new JSONArray().put(entry.getString("url")));
+        if (entry.has("env")) {
+            file.put("env", entry.getJSONObject("env"));
+        }
+        return file;
+    }
+
+    private Path writeManifest(JSONArray files) throws IOException {
+        return Files.write(work.resolve("modpack.json"), files.toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(String path) throws IOException {
+        return new String(Files.readAllBytes(root.resolve(path)), StandardCharsets.UTF_8);
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String sha1(byte[] bytes) {
+        return ArtifactStore.toHex(ArtifactStore.createDigest("SHA-1").digest(bytes));
+    }
+}